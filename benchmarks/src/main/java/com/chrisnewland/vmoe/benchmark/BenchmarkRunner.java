@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the benchmarks matching the optional regex with the GC profiler attached so every result
+// includes gc.alloc.rate and gc.alloc.rate.norm alongside throughput
+public class BenchmarkRunner
+{
+	public static void main(String[] args) throws RunnerException
+	{
+		String include = args.length > 0 ? args[0] : ".*";
+
+		Options options = new OptionsBuilder().include(include).addProfiler(GCProfiler.class).build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public final class Fixtures
+{
+	public static final String HOTSPOT_ROOT = "/fixtures/hotspot";
+
+	public static final String[] HOTSPOT_FILES = { "src/hotspot/share/runtime/globals.hpp", "src/hotspot/share/opto/c2_globals.hpp",
+			"src/hotspot/share/c1/c1_globals.hpp", "src/hotspot/share/gc/g1/g1_globals.hpp", "src/hotspot/os/linux/globals_linux.hpp",
+			"src/hotspot/cpu/aarch64/globals_aarch64.hpp", "src/hotspot/cpu/x86/globals_x86.hpp",
+			"src/hotspot/os_cpu/linux_x86/globals_linux_x86.hpp", "src/hotspot/share/Xusage.txt",
+			"src/hotspot/share/classfile/vmIntrinsics.hpp" };
+
+	public static final String OPENJ9_ROOT = "/fixtures/openj9";
+
+	public static final String[] OPENJ9_FILES = { "runtime/oti/jvminit.h", "runtime/nls/exel/exelib.nls" };
+
+	// copied from the project root by the benchmarks pom
+	public static final String VM_ROOT = "/fixtures/vm";
+
+	public static final String[] GRAAL_VM_FILES = { "graal_ce_java8.vm", "graal_ce_java11.vm", "graal_ce_java16.vm",
+			"graal_ee_java8.vm", "graal_ee_java11.vm", "graal_ee_java16.vm" };
+
+	public static final String[] GRAAL_NATIVE_FILES = { "graal_ce_java8.native", "graal_ce_java11.native",
+			"graal_ce_java16.native", "graal_ee_java8.native", "graal_ee_java11.native", "graal_ee_java16.native" };
+
+	public static final String[] ZING_FILES = { "zing8.out", "zing11.out", "zulu8.out", "zulu11.out", "zulu13.out", "zulu15.out",
+			"zulu16.out" };
+
+	private Fixtures()
+	{
+	}
+
+	// the parsers read from the filesystem so classpath fixtures are copied out first
+	public static Path extract(String resourceRoot, String[] relativePaths, Path targetDir) throws IOException
+	{
+		for (String relativePath : relativePaths)
+		{
+			Path target = targetDir.resolve(relativePath);
+
+			Files.createDirectories(target.getParent());
+
+			try (InputStream inputStream = open(resourceRoot + "/" + relativePath))
+			{
+				Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		return targetDir;
+	}
+
+	public static void delete(Path dir) throws IOException
+	{
+		if (dir == null || !Files.exists(dir))
+		{
+			return;
+		}
+
+		try (Stream<Path> paths = Files.walk(dir))
+		{
+			paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	public static List<String> readLines(String resource) throws IOException
+	{
+		List<String> lines = new ArrayList<>();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(resource), StandardCharsets.UTF_8)))
+		{
+			String line;
+
+			while ((line = reader.readLine()) != null)
+			{
+				lines.add(line);
+			}
+		}
+
+		return lines;
+	}
+
+	private static InputStream open(String resource) throws IOException
+	{
+		InputStream inputStream = Fixtures.class.getResourceAsStream(resource);
+
+		if (inputStream == null)
+		{
+			throw new IOException("Missing fixture " + resource);
+		}
+
+		return inputStream;
+	}
+}
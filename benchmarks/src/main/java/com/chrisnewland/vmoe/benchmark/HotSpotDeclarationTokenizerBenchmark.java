@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.chrisnewland.vmoe.parser.HotSpotDeclarationTokenizer;
+
+// Legacy StringBuilder/regex/explodeLine declaration splitting against HotSpotDeclarationTokenizer
+// over every flag declaration in the bundled globals files
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotSpotDeclarationTokenizerBenchmark
+{
+	private static final Pattern DECLARATION_START = Pattern.compile(
+			"^(product|product_pd|develop|develop_pd|notproduct|diagnostic|experimental|manageable|define_pd_global)\\(.*");
+
+	private static class Declaration
+	{
+		final List<String> lines = new ArrayList<>();
+		final String expectedLineEnding;
+
+		Declaration(String expectedLineEnding)
+		{
+			this.expectedLineEnding = expectedLineEnding;
+		}
+	}
+
+	private List<Declaration> declarations;
+
+	private LegacyDeclarationTokenizer legacyTokenizer;
+
+	private HotSpotDeclarationTokenizer tokenizer;
+
+	@Setup public void setup() throws IOException
+	{
+		declarations = new ArrayList<>();
+
+		for (String file : Fixtures.HOTSPOT_FILES)
+		{
+			if (!file.contains("globals"))
+			{
+				continue;
+			}
+
+			Declaration current = null;
+
+			for (String line : Fixtures.readLines(Fixtures.HOTSPOT_ROOT + "/" + file))
+			{
+				// same normalisation HotSpotSwitchParser applies before a line reaches the tokenizer
+				String trimmed = line.replace("\\\"", "'").replace("\\", "").replace("\" )", "\")").replace("JFR_ONLY(", "").trim();
+
+				if (current == null && DECLARATION_START.matcher(trimmed).matches())
+				{
+					current = new Declaration(trimmed.startsWith("define_pd_global") ? ");" : "\")");
+				}
+
+				if (current != null)
+				{
+					current.lines.add(trimmed);
+
+					if (trimmed.contains(current.expectedLineEnding))
+					{
+						declarations.add(current);
+						current = null;
+					}
+				}
+			}
+		}
+
+		legacyTokenizer = new LegacyDeclarationTokenizer();
+
+		tokenizer = new HotSpotDeclarationTokenizer();
+	}
+
+	@Benchmark public void legacy(Blackhole blackhole)
+	{
+		for (Declaration declaration : declarations)
+		{
+			for (String line : declaration.lines)
+			{
+				legacyTokenizer.append(line);
+			}
+
+			blackhole.consume(legacyTokenizer.tokenize(declaration.expectedLineEnding));
+			blackhole.consume(legacyTokenizer.getComment());
+		}
+	}
+
+	@Benchmark public void tokenizer(Blackhole blackhole)
+	{
+		for (Declaration declaration : declarations)
+		{
+			for (String line : declaration.lines)
+			{
+				tokenizer.append(line);
+			}
+
+			tokenizer.tokenize(declaration.expectedLineEnding);
+
+			blackhole.consume(tokenizer.getParts());
+			blackhole.consume(tokenizer.getComment());
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The declaration handling HotSpotSwitchParser used before HotSpotDeclarationTokenizer,
+// including the quote-aware comma split that was AbstractSwitchParser.explodeLine
+public class LegacyDeclarationTokenizer
+{
+	private final StringBuilder lineBuilder = new StringBuilder();
+
+	private String comment;
+
+	public void append(String trimmed)
+	{
+		lineBuilder.append(trimmed);
+	}
+
+	public List<String> tokenize(String expectedLineEnding)
+	{
+		String result = lineBuilder.toString().replace("\"\"", "<br>").replaceAll("\\s+", " ");
+
+		int lineEndingPos = result.indexOf(expectedLineEnding);
+
+		int commentPos = result.indexOf("//", lineEndingPos);
+
+		comment = null;
+
+		if (commentPos != -1)
+		{
+			comment = result.substring(commentPos);
+		}
+
+		result = result.substring(0, lineEndingPos);
+
+		lineBuilder.delete(0, lineBuilder.length());
+
+		result = result.substring(result.indexOf('(') + 1);
+
+		return explodeLine(result);
+	}
+
+	private List<String> explodeLine(String line)
+	{
+		List<String> result = new ArrayList<>();
+
+		final int length = line.length();
+
+		StringBuilder builder = new StringBuilder();
+
+		boolean inQuotes = false;
+
+		for (int i = 0; i < length; i++)
+		{
+			char c = line.charAt(i);
+
+			if (inQuotes)
+			{
+				if (c == '"')
+				{
+					inQuotes = false;
+					String part = builder.toString().trim();
+					// System.out.println("part: " + part);
+					if (part.length() > 0)
+					{
+						result.add(part);
+					}
+					builder.delete(0, builder.length());
+				}
+				else
+				{
+					builder.append(c);
+				}
+			}
+			else if (c == '"')
+			{
+				inQuotes = true;
+			}
+			else if (c == ',')
+			{
+				String part = builder.toString().trim();
+				// System.out.println("part: " + part);
+				if (part.length() > 0)
+				{
+					result.add(part);
+				}
+				builder.delete(0, builder.length());
+			}
+			else
+			{
+				builder.append(c);
+			}
+		}
+
+		if (builder.length() > 0)
+		{
+			String part = builder.toString().trim();
+			// System.out.println("part: " + part);
+			if (part.length() > 0)
+			{
+				result.add(part);
+			}
+			builder.delete(0, builder.length());
+		}
+
+		return result;
+	}
+
+	public String getComment()
+	{
+		return comment;
+	}
+}
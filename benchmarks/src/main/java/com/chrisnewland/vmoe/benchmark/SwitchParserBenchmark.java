@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chrisnewland.vmoe.parser.GraalNativeImageSwitchParser;
+import com.chrisnewland.vmoe.parser.GraalVMSwitchParser;
+import com.chrisnewland.vmoe.parser.HotSpotSwitchParser;
+import com.chrisnewland.vmoe.parser.ISwitchParser;
+import com.chrisnewland.vmoe.parser.OpenJ9SwitchParser;
+import com.chrisnewland.vmoe.parser.XUsageParser;
+import com.chrisnewland.vmoe.parser.ZingSwitchParser;
+import com.chrisnewland.vmoe.parser.intrinsic.IntrinsicParser;
+
+// One benchmark per parser over the bundled fixtures.
+// The switches aux counter reports parsed switches (intrinsics for IntrinsicParser) per second,
+// run with -prof gc (or BenchmarkRunner) for the allocation rate
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwitchParserBenchmark
+{
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters
+	{
+		public long switches;
+
+		@Setup(Level.Iteration) public void reset()
+		{
+			switches = 0;
+		}
+	}
+
+	private Path fixtureDir;
+
+	private File hotspotDir;
+	private File xUsageFile;
+	private Path intrinsicsFile;
+	private File openJ9Dir;
+
+	private File[] graalVMFiles;
+	private File[] graalNativeFiles;
+	private File[] zingFiles;
+
+	@Setup public void setup() throws IOException
+	{
+		fixtureDir = Files.createTempDirectory("vmoe-benchmark");
+
+		Path hotspotRoot = Fixtures.extract(Fixtures.HOTSPOT_ROOT, Fixtures.HOTSPOT_FILES, fixtureDir.resolve("hotspot"));
+
+		hotspotDir = hotspotRoot.resolve("src/hotspot").toFile();
+		xUsageFile = hotspotRoot.resolve("src/hotspot/share/Xusage.txt").toFile();
+		intrinsicsFile = hotspotRoot.resolve("src/hotspot/share/classfile/vmIntrinsics.hpp");
+
+		openJ9Dir = Fixtures.extract(Fixtures.OPENJ9_ROOT, Fixtures.OPENJ9_FILES, fixtureDir.resolve("openj9")).toFile();
+
+		Path vmRoot = Fixtures.extract(Fixtures.VM_ROOT, concat(Fixtures.GRAAL_VM_FILES, Fixtures.GRAAL_NATIVE_FILES, Fixtures.ZING_FILES),
+				fixtureDir.resolve("vm"));
+
+		graalVMFiles = resolve(vmRoot, Fixtures.GRAAL_VM_FILES);
+		graalNativeFiles = resolve(vmRoot, Fixtures.GRAAL_NATIVE_FILES);
+		zingFiles = resolve(vmRoot, Fixtures.ZING_FILES);
+	}
+
+	@TearDown public void tearDown() throws IOException
+	{
+		Fixtures.delete(fixtureDir);
+	}
+
+	@Benchmark public int hotSpot(Counters counters) throws IOException
+	{
+		return count(counters, new HotSpotSwitchParser(), hotspotDir);
+	}
+
+	@Benchmark public int graalVM(Counters counters) throws IOException
+	{
+		return count(counters, new GraalVMSwitchParser(), graalVMFiles);
+	}
+
+	@Benchmark public int graalNativeImage(Counters counters) throws IOException
+	{
+		return count(counters, new GraalNativeImageSwitchParser(), graalNativeFiles);
+	}
+
+	@Benchmark public int zing(Counters counters) throws IOException
+	{
+		return count(counters, new ZingSwitchParser(), zingFiles);
+	}
+
+	@Benchmark public int openJ9(Counters counters) throws IOException
+	{
+		return count(counters, new OpenJ9SwitchParser(), openJ9Dir);
+	}
+
+	@Benchmark public int xUsage(Counters counters) throws IOException
+	{
+		return count(counters, new XUsageParser(), xUsageFile);
+	}
+
+	@Benchmark public int intrinsics(Counters counters) throws Exception
+	{
+		int count = new IntrinsicParser(null, null, null).parseIntrinsics(intrinsicsFile).size();
+
+		counters.switches += count;
+
+		return count;
+	}
+
+	private int count(Counters counters, ISwitchParser parser, File... inputs) throws IOException
+	{
+		int count = 0;
+
+		for (File input : inputs)
+		{
+			count += parser.process(input).size();
+		}
+
+		counters.switches += count;
+
+		return count;
+	}
+
+	private static File[] resolve(Path root, String[] names)
+	{
+		File[] result = new File[names.length];
+
+		for (int i = 0; i < names.length; i++)
+		{
+			result[i] = root.resolve(names[i]).toFile();
+		}
+
+		return result;
+	}
+
+	private static String[] concat(String[]... arrays)
+	{
+		int length = 0;
+
+		for (String[] array : arrays)
+		{
+			length += array.length;
+		}
+
+		String[] result = new String[length];
+
+		int pos = 0;
+
+		for (String[] array : arrays)
+		{
+			System.arraycopy(array, 0, result, pos, array.length);
+			pos += array.length;
+		}
+
+		return result;
+	}
+}
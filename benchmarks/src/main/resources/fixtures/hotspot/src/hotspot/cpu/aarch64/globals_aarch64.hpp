@@ -0,0 +1,23 @@
+/*
+ * Reduced HotSpot flag declarations used as a benchmark fixture
+ */
+ */
+
+#include "utilities/globalDefinitions.hpp"
+
+// Sets the default values for platform dependent flags used by the runtime system.
+// (see globals.hpp)
+
+define_pd_global(bool, ImplicitNullChecks,          true);  // Generate code for implicit null checks
+define_pd_global(bool, UseMembar,                   false);
+define_pd_global(intx, CodeEntryAlignment,          32);
+define_pd_global(size_t, NewSizeThreadIncrease, 4*K);
+
+#define ARCH_FLAGS(develop, product, notproduct, range, constraint) \
+                                                                   \
+  develop(bool, IEEEPrecision, true,                               \
+          "Enables IEEE precision (for INTEL only)")               \
+                                                                   \
+  product(bool, UseAVX, 3,                                          \
+          "Highest supported AVX instructions set on x86/x64")     \
+          range(0, 99)                                             \
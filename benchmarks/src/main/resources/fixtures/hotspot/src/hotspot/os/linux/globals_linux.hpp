@@ -0,0 +1,15 @@
+/*
+ * Reduced HotSpot flag declarations used as a benchmark fixture
+ */
+ */
+
+#define RUNTIME_OS_FLAGS(develop, develop_pd, product, product_pd, notproduct, range, constraint) \
+                                                                        \
+  product(bool, UseOprofile, false,                                     \
+        "enable support for Oprofile profiler")                         \
+                                                                        \
+  product(bool, UseLinuxPosixThreadCPUClocks, true,                     \
+          "enable fast Linux Posix clocks where available")             \
+
+define_pd_global(bool, UseLargePagesIndividualAllocation, false);
+define_pd_global(bool, UseThreadPriorities, true) ;
@@ -0,0 +1,8 @@
+/*
+ * Reduced HotSpot flag declarations used as a benchmark fixture
+ */
+ */
+
+define_pd_global(bool, DontYieldALot,            false);
+define_pd_global(intx, ThreadStackSize,          1024); // 0 => use system default
+define_pd_global(intx, VMThreadStackSize,        1024);
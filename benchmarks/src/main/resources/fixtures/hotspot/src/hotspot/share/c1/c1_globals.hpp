@@ -0,0 +1,10 @@
+/*
+ * Reduced HotSpot flag declarations used as a benchmark fixture
+ */
+ */
+
+#define C1_FLAGS(develop, develop_pd, product, product_pd, notproduct, range, constraint) \
+  product(bool, C1ProfileCalls, true,                                       \
+          "Profile calls when generating code for updating MDOs")           \
+  develop(bool, C1Breakpoint, false,                                        \
+          "Sets a breakpoint at entry of each compiled method")             \
@@ -0,0 +1,21 @@
+
+#define VM_SYMBOLS_DO(template, do_alias)                                                         \
+  template(java_lang_System,                          "java/lang/System")                         \
+  template(java_lang_Object,                          "java/lang/Object")                         \
+  template(java_lang_Math,                            "java/lang/Math")                           \
+  do_alias(object_initializer_signature,              void_method_signature)                      \
+  template(void_method_signature,                     "()V")                                      \
+
+#define VM_INTRINSICS_DO(do_intrinsic, do_class, do_name, do_signature, do_alias)                   \
+  do_intrinsic(_hashCode2,                 java_lang_Object,       hashCode_name, void_int_signature,         F_R)   \
+   do_name(     hashCode_name,                                   "hashCode")                                      \
+  do_intrinsic(_getClass,                 java_lang_Object,       getClass_name, getClass_signature,         F_R)   \
+   do_name(     getClass_name,                                   "getClass")                                      \
+   do_signature(getClass_signature,                              "()Ljava/lang/Class;")                           \
+  do_intrinsic(_dabs,                     java_lang_Math,         abs_name,   double_double_signature,  F_S)   \
+   do_name(abs_name,"abs")       do_name(sin_name,"sin")                                                    \
+  do_intrinsic(_currentTimeMillis,        java_lang_System,       currentTimeMillis_name, void_long_signature,  F_S)   \
+   do_name(     currentTimeMillis_name,                          "currentTimeMillis")                            \
+  do_intrinsic(_init,  java_lang_Object, object_initializer_name, object_initializer_signature, F_R) \
+   template(void_int_signature, "()I") template(void_long_signature, "()J") \
+   template(double_double_signature, "(D)D") template(object_initializer_name, "<init>") \
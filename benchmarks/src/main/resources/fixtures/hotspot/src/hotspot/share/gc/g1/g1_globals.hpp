@@ -0,0 +1,13 @@
+/*
+ * Reduced HotSpot flag declarations used as a benchmark fixture
+ */
+ */
+
+#define GC_FLAGS(develop, develop_pd, product, product_pd, notproduct, range, constraint) \
+  product(bool, UseG1GC, false,                                             \
+          "Use the Garbage-First garbage collector")                        \
+                                                                            \
+  product(uintx, G1ConcRefinementThreads, 0,                                \
+          "The number of parallel rem set update threads. "                 \
+          "Will be set ergonomically by default.")                          \
+          range(0, (max_jint-1)/wordSize)                                   \
@@ -0,0 +1,20 @@
+/*
+ * Reduced HotSpot flag declarations used as a benchmark fixture
+ */
+ */
+
+#define C2_FLAGS(develop, develop_pd, product, product_pd, notproduct, range, constraint) \
+                                                                            \
+  product(bool, StressLCM, false, DIAGNOSTIC,                               \
+          "Randomize instruction scheduling in LCM")                        \
+                                                                            \
+  product_pd(intx, CompileThreshold,                                        \
+          "number of interpreted method invocations before (re-)compiling") \
+                                                                            \
+  product(intx, MaxNodeLimit, 80000,                                        \
+          "Maximum number of nodes")                                        \
+          range(1000, max_jint / 3)                                         \
+                                                                            \
+  notproduct(ccstrlist, PrintIdealGraphFile, NULL,                          \
+          "File to dump ideal graph to.  If set overrides the "             \
+          "use of the network")                                             \
@@ -0,0 +1,84 @@
+/*
+ * Reduced HotSpot flag declarations used as a benchmark fixture
+ */
+ */
+
+#ifndef SHARE_RUNTIME_GLOBALS_HPP
+#define SHARE_RUNTIME_GLOBALS_HPP
+
+#include "utilities/align.hpp"
+// develop flags are settable / visible only during development (and only in product_pd(build))
+#define RUNTIME_FLAGS(develop,                                              \
+                      develop_pd,                                           \
+                      product,                                              \
+                      product_pd,                                           \
+                      notproduct,                                           \
+                      range,                                                \
+                      constraint)                                           \
+                                                                            \
+  product(bool, UseCompressedOops, false,                                   \
+          "Use 32-bit object references in 64-bit VM. "                     \
+          "lp64_product means flag is always constant in 32 bit VM")        \
+                                                                            \
+  product(bool, UseTLAB, true, "Use thread-local object allocation")        \
+                                                                            \
+  product(ccstr, AbortVMOnException, NULL,                                  \
+          "Call fatal if this exception is thrown. Example: "               \
+          "java -XX:AbortVMOnException=java.lang.NullPointerException Foo") \
+                                                                            \
+  product(ccstr, OnError, "",                                               \
+          "Run user-defined commands on fatal error; see VMError.cpp "      \
+          "for examples")                                                   \
+                                                                            \
+  product(uintx, ErrorLogTimeout, 2 * 60,                                   \
+          "Timeout, in seconds, to limit the time spent on writing an "     \
+          "error log in case of a crash.")                                  \
+          range(0, (uint64_t)max_jlong/1000)                                \
+                                                                            \
+  develop(bool, TraceFoo, false,  "Trace \"foo\" operations" )                 \
+                                                                            \
+  product_pd(bool, UseMembar,                                               \
+          "(Unstable) Issues membars on thread state transitions")          \
+                                                                            \
+  develop_pd(bool, ImplicitNullChecks,                                      \
+          "Generate code for implicit null checks")                         \
+                                                                            \
+  notproduct(bool, PrintMallocStatistics, false,                            \
+          "Print malloc/free statistics")                                   \
+                                                                            \
+  product(intx, SelectionMode, 0,                                           \
+          "Selection mode:"                                                 \
+          "0: none "                                                        \
+          "1: some "                                                        \
+          "2: all")                                                         \
+          range(0, 2)                                                       \
+          constraint(SelectionModeConstraintFunc,AfterErgo)                 \
+                                                                            \
+  JFR_ONLY(product(bool, FlightRecorder, false,                             \
+          "(Deprecated) Enable Flight Recorder"))                           \
+                                                                            \
+  product(size_t, MaxHeapSize, ScaleForWordSize(96*M),                      \
+          "Maximum heap size (in bytes)")                                   \
+          constraint(MaxHeapSizeConstraintFunc,AfterErgo)                   \
+                                                                            \
+  product(bool, UseLargePages, false,                                       \
+          "Use large page memory")  /* comment */                           \
+                                                                            \
+  product(intx, ObsoleteThing, 5, "An option to be obsoleted")  // legacy   \
+
+  product(bool, PrintFlagsRanges, false, DIAGNOSTIC,                        \
+          "Print VM flags and their ranges")                                \
+                                                                            \
+  product(bool, UnlockExperimentalVMOptions, false, EXPERIMENTAL,           \
+          "Unlock experimental options")                                    \
+                                                                            \
+  product(bool, HeapDumpOnOutOfMemoryError, false, MANAGEABLE,              \
+          "Dump heap to file when java.lang.OutOfMemoryError is thrown "    \
+          "from JVM")                                                       \
+
+// end of RUNTIME_FLAGS
+
+#define DECLARE_FLAGS(product_pd) (x)
+DECLARE_FLAGS(RUNTIME_FLAGS)
+
+#endif // SHARE_RUNTIME_GLOBALS_HPP
@@ -0,0 +1,9 @@
+
+#define VMOPT_XJIT "-Xjit"
+#define VMOPT_XNOJIT "-Xnojit"
+#define VMOPT_XXUSECOMPRESSEDOOPS "-XX:+UseCompressedOops"
+#define VMOPT_XXNOUSECOMPRESSEDOOPS "-XX:-UseCompressedOops"
+#define VMOPT_XMX "-Xmx"
+#define VMOPT_XSHARECLASSES "-Xshareclasses:"
+#define VMOPT_XVERIFY "-Xverify"
+#define VMOPT_XXHEAPDUMP "-XX:HeapDumpPath="
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class DigestUtil
+{
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	public static MessageDigest newSHA1()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-1");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException("SHA-1 not available", e);
+		}
+	}
+
+	public static String sha1Hex(byte[] bytes)
+	{
+		return toHex(newSHA1().digest(bytes));
+	}
+
+	public static String sha1Hex(Path path) throws IOException
+	{
+		MessageDigest digest = newSHA1();
+
+		try (InputStream inputStream = new DigestInputStream(Files.newInputStream(path), digest))
+		{
+			byte[] buffer = new byte[65536];
+
+			while (inputStream.read(buffer) != -1)
+			{
+				// digest as we read
+			}
+		}
+
+		return toHex(digest.digest());
+	}
+
+	public static String toHex(byte[] bytes)
+	{
+		char[] chars = new char[bytes.length * 2];
+
+		for (int i = 0; i < bytes.length; i++)
+		{
+			chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+
+		return new String(chars);
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+// Pull tokenizer for the JSON this tool writes, reading one value at a time so a document
+// never has to be held in memory. Commas and colons are treated as separators, which is
+// enough for reading back our own output but is not a validating parser.
+//
+//   reader.expect('{');
+//   while (reader.hasNext()) { String name = reader.nextString(); ... }
+//   reader.expect('}');
+public class JSONStreamReader implements Closeable
+{
+	private static final int BUFFER_SIZE = 65536;
+
+	private final Reader reader;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int pos;
+
+	private int limit;
+
+	private final StringBuilder stringBuilder = new StringBuilder();
+
+	public JSONStreamReader(InputStream inputStream)
+	{
+		this(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+	}
+
+	public JSONStreamReader(Reader reader)
+	{
+		this.reader = reader;
+	}
+
+	// the next structural character or the first character of a value, -1 at the end of input
+	public int peek() throws IOException
+	{
+		while (true)
+		{
+			if (pos == limit && !fill())
+			{
+				return -1;
+			}
+
+			char c = buffer[pos];
+
+			if (c == ',' || c == ':' || Character.isWhitespace(c))
+			{
+				pos++;
+			}
+			else
+			{
+				return c;
+			}
+		}
+	}
+
+	public void expect(char expected) throws IOException
+	{
+		int c = peek();
+
+		if (c != expected)
+		{
+			throw new IOException("Expected '" + expected + "' but found " + describe(c));
+		}
+
+		pos++;
+	}
+
+	// false when the current object or array has no more members
+	public boolean hasNext() throws IOException
+	{
+		int c = peek();
+
+		return c != '}' && c != ']' && c != -1;
+	}
+
+	// a quoted string, or the text of a number or boolean literal, or null for a JSON null
+	public String nextString() throws IOException
+	{
+		int c = peek();
+
+		if (c == '"')
+		{
+			pos++;
+
+			return readQuoted();
+		}
+
+		if (c == -1 || c == '{' || c == '}' || c == '[' || c == ']')
+		{
+			throw new IOException("Expected a value but found " + describe(c));
+		}
+
+		String literal = readLiteral();
+
+		return "null".equals(literal) ? null : literal;
+	}
+
+	public void skipValue() throws IOException
+	{
+		int c = peek();
+
+		if (c == '{' || c == '[')
+		{
+			pos++;
+
+			int depth = 1;
+
+			while (depth > 0)
+			{
+				c = peek();
+
+				if (c == -1)
+				{
+					throw new IOException("Unterminated object or array");
+				}
+				else if (c == '{' || c == '[')
+				{
+					pos++;
+					depth++;
+				}
+				else if (c == '}' || c == ']')
+				{
+					pos++;
+					depth--;
+				}
+				else
+				{
+					nextString();
+				}
+			}
+		}
+		else
+		{
+			nextString();
+		}
+	}
+
+	@Override public void close() throws IOException
+	{
+		reader.close();
+	}
+
+	private String readQuoted() throws IOException
+	{
+		stringBuilder.setLength(0);
+
+		while (true)
+		{
+			int start = pos;
+
+			while (pos < limit)
+			{
+				char c = buffer[pos];
+
+				if (c == '"')
+				{
+					stringBuilder.append(buffer, start, pos - start);
+
+					pos++;
+
+					return stringBuilder.toString();
+				}
+				else if (c == '\\')
+				{
+					stringBuilder.append(buffer, start, pos - start);
+
+					pos++;
+
+					stringBuilder.append(readEscape());
+
+					start = pos;
+				}
+				else
+				{
+					pos++;
+				}
+			}
+
+			stringBuilder.append(buffer, start, pos - start);
+
+			if (!fill())
+			{
+				throw new IOException("Unterminated string");
+			}
+		}
+	}
+
+	private char readEscape() throws IOException
+	{
+		char c = nextChar();
+
+		switch (c)
+		{
+		case 'b':
+			return '\b';
+		case 't':
+			return '\t';
+		case 'n':
+			return '\n';
+		case 'f':
+			return '\f';
+		case 'r':
+			return '\r';
+		case 'u':
+			int value = 0;
+
+			for (int i = 0; i < 4; i++)
+			{
+				int digit = Character.digit(nextChar(), 16);
+
+				if (digit == -1)
+				{
+					throw new IOException("Bad unicode escape");
+				}
+
+				value = (value << 4) | digit;
+			}
+
+			return (char) value;
+		default:
+			// \" \\ \/
+			return c;
+		}
+	}
+
+	private String readLiteral() throws IOException
+	{
+		stringBuilder.setLength(0);
+
+		while (true)
+		{
+			if (pos == limit && !fill())
+			{
+				break;
+			}
+
+			char c = buffer[pos];
+
+			if (c == ',' || c == ':' || c == '}' || c == ']' || Character.isWhitespace(c))
+			{
+				break;
+			}
+
+			stringBuilder.append(c);
+
+			pos++;
+		}
+
+		return stringBuilder.toString();
+	}
+
+	private char nextChar() throws IOException
+	{
+		if (pos == limit && !fill())
+		{
+			throw new IOException("Unexpected end of input");
+		}
+
+		return buffer[pos++];
+	}
+
+	private boolean fill() throws IOException
+	{
+		int read = reader.read(buffer, 0, buffer.length);
+
+		pos = 0;
+		limit = Math.max(read, 0);
+
+		return read > 0;
+	}
+
+	private String describe(int c)
+	{
+		return c == -1 ? "end of input" : "'" + (char) c + "'";
+	}
+}
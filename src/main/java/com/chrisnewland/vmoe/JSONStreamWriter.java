@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Writes JSON straight to a stream without building a JSONObject per element.
+// Strings are escaped by JSONObject.quote so the bytes match what JSONObject.toString() produces.
+public class JSONStreamWriter implements Closeable
+{
+	private static final int BUFFER_SIZE = 65536;
+
+	private final Writer writer;
+
+	private boolean firstField;
+
+	public JSONStreamWriter(OutputStream outputStream)
+	{
+		this(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE));
+	}
+
+	public JSONStreamWriter(Writer writer)
+	{
+		this.writer = writer;
+	}
+
+	public JSONStreamWriter writeRaw(String text) throws IOException
+	{
+		writer.write(text);
+
+		return this;
+	}
+
+	public JSONStreamWriter writeQuoted(String value) throws IOException
+	{
+		JSONObject.quote(value, writer);
+
+		return this;
+	}
+
+	public JSONStreamWriter beginObject() throws IOException
+	{
+		writer.write('{');
+
+		firstField = true;
+
+		return this;
+	}
+
+	// null values are left out, the same as JSONObject.put(key, null)
+	public JSONStreamWriter writeField(String key, String value) throws IOException
+	{
+		if (value != null)
+		{
+			if (!firstField)
+			{
+				writer.write(',');
+			}
+
+			JSONObject.quote(key, writer);
+			writer.write(':');
+			JSONObject.quote(value, writer);
+
+			firstField = false;
+		}
+
+		return this;
+	}
+
+	public JSONStreamWriter endObject() throws IOException
+	{
+		writer.write('}');
+
+		return this;
+	}
+
+	public void flush() throws IOException
+	{
+		writer.flush();
+	}
+
+	@Override public void close() throws IOException
+	{
+		writer.close();
+	}
+}
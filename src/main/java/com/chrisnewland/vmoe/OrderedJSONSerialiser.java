@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Serialises the string fields of a type with the keys in sorted order, the same layout as a
+// JSONObject backed by a TreeMap, without reflection. The field order is fixed when the
+// fields are registered so each object is written with a single pass over its getters.
+public class OrderedJSONSerialiser<T>
+{
+	private final List<String> keys = new ArrayList<>();
+
+	private final List<Function<T, String>> getters = new ArrayList<>();
+
+	public OrderedJSONSerialiser<T> field(String key, Function<T, String> getter)
+	{
+		int pos = 0;
+
+		while (pos < keys.size() && keys.get(pos).compareTo(key) < 0)
+		{
+			pos++;
+		}
+
+		if (pos < keys.size() && keys.get(pos).equals(key))
+		{
+			throw new IllegalArgumentException("Duplicate key " + key);
+		}
+
+		keys.add(pos, key);
+		getters.add(pos, getter);
+
+		return this;
+	}
+
+	public void write(T object, JSONStreamWriter writer) throws IOException
+	{
+		writer.beginObject();
+
+		for (int i = 0; i < keys.size(); i++)
+		{
+			writer.writeField(keys.get(i), getters.get(i).apply(object));
+		}
+
+		writer.endObject();
+	}
+
+	public String serialise(T object)
+	{
+		StringWriter stringWriter = new StringWriter();
+
+		try
+		{
+			write(object, new JSONStreamWriter(stringWriter));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		return stringWriter.toString();
+	}
+}
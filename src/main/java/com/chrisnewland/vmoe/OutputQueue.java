@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Runs file writes on a dedicated I/O thread so the caller can carry on parsing.
+// At most capacity writes are queued, submit blocks while the queue is full.
+// A single thread keeps writes in submission order so a file written twice ends up with its last content.
+public class OutputQueue
+{
+	private final ExecutorService executor;
+
+	private final Semaphore permits;
+
+	private final int capacity;
+
+	private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+	public OutputQueue(int capacity)
+	{
+		this.capacity = capacity;
+
+		this.permits = new Semaphore(capacity);
+
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "vmoe-output");
+
+			// never keeps the JVM alive if the run fails before the queue is closed
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	public void submit(Write write) throws IOException
+	{
+		checkFailure();
+
+		try
+		{
+			permits.acquire();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new IOException("Interrupted waiting for the output queue", e);
+		}
+
+		executor.execute(() -> {
+			try
+			{
+				write.write();
+			}
+			catch (Exception e)
+			{
+				failure.compareAndSet(null, e);
+			}
+			finally
+			{
+				permits.release();
+			}
+		});
+	}
+
+	// Barrier: returns once every write submitted before the call has completed,
+	// throwing the first write failure if there was one.
+	public void flush() throws IOException
+	{
+		try
+		{
+			permits.acquire(capacity);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new IOException("Interrupted flushing the output queue", e);
+		}
+
+		permits.release(capacity);
+
+		checkFailure();
+	}
+
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private void checkFailure() throws IOException
+	{
+		Exception e = failure.get();
+
+		if (e instanceof IOException)
+		{
+			throw (IOException) e;
+		}
+		else if (e != null)
+		{
+			throw new IOException("Output write failed", e);
+		}
+	}
+
+	public interface Write
+	{
+		void write() throws IOException;
+	}
+}
@@ -4,97 +4,715 @@
  */
 package com.chrisnewland.vmoe;
 
+import com.chrisnewland.vmoe.catalogue.CatalogueWriter;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.instrument.Phase;
+import com.chrisnewland.vmoe.instrument.PhaseTimer;
 import com.chrisnewland.vmoe.parser.delta.IDeltaTable;
 import com.chrisnewland.vmoe.parser.intrinsic.Intrinsic;
+import com.chrisnewland.vmoe.store.DeduplicatedSwitchStore;
+import com.chrisnewland.vmoe.store.VersionPatch;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 public class Serialiser
 {
-	private Map<String, String> filenameSHA1Map = new TreeMap<>();
+	private static final String HASHES_FILENAME = "hashes";
 
-	public void serialiseSwitchInfo(Path pathToSerialisationFile, Collection<SwitchInfo> switchInfoSet) throws Exception
-	{
-		StringBuilder builder = new StringBuilder();
+	private static final String DATE_PLACEHOLDER = "$DATE";
+
+	private static final String GZIP_SUFFIX = ".gz";
 
-		builder.append("{ \"switches\" : [ ");
+	private static final int BUFFER_SIZE = 65536;
 
-		for (SwitchInfo switchInfo : switchInfoSet)
+	// OutputStream.nullOutputStream() is Java 11+
+	private static final OutputStream DISCARD = new OutputStream()
+	{
+		@Override public void write(int b)
 		{
-			builder.append(switchInfo.serialise()).append(",\n");
 		}
 
-		builder.deleteCharAt(builder.length() - 2);
+		@Override public void write(byte[] b, int off, int len)
+		{
+		}
+	};
+
+	// Files may be written from several threads at once. The manifests are sorted maps so
+	// they are saved in the same order whatever order the files were written in.
+	private Map<String, String> filenameSHA1Map = new ConcurrentSkipListMap<>();
+
+	private Map<String, String> htmlFilenameSHA1Map = new ConcurrentSkipListMap<>();
+
+	private Map<String, String> previousSHA1Map = new ConcurrentHashMap<>();
+
+	private Map<String, String> previousHTMLSHA1Map = new ConcurrentHashMap<>();
+
+	private volatile boolean incremental;
+
+	private volatile boolean writeNDJSON;
+
+	private AtomicInteger writtenCount = new AtomicInteger();
+
+	private AtomicInteger skippedCount = new AtomicInteger();
+
+	private AtomicLong tempFileCounter = new AtomicLong();
+
+	// files written since the last flush, forced to disk together before a manifest is saved
+	private Set<Path> unsyncedFiles = ConcurrentHashMap.newKeySet();
+
+	private OutputQueue outputQueue;
+
+	private ExecutorService compressionPool;
 
-		builder.append("] }");
+	// the last compression of each .gz so a file compressed twice is written in submission order
+	private Map<Path, CompletableFuture<Void>> pendingCompressions = new ConcurrentHashMap<>();
 
-		writeFile(pathToSerialisationFile, builder.toString());
+	private AtomicInteger compressedCount = new AtomicInteger();
+
+	private AtomicInteger compressedSkippedCount = new AtomicInteger();
+
+	private AtomicLong uncompressedBytes = new AtomicLong();
+
+	private AtomicLong compressedBytes = new AtomicLong();
+
+	public void setIncremental(boolean incremental)
+	{
+		this.incremental = incremental;
 	}
 
-	public void serialiseIntrinsics(Path pathToSerialisationFile, Collection<Intrinsic> intrinsics) throws Exception
+	// Hand file writes to a background I/O thread with at most queueCapacity files pending.
+	// JSON is serialised on that thread too, so the objects being written must not change afterwards.
+	// The switches of a VM are copied first because "since" is set on them once they are serialised.
+	public void setAsyncOutput(int queueCapacity)
 	{
-		StringBuilder builder = new StringBuilder();
+		this.outputQueue = queueCapacity > 0 ? new OutputQueue(queueCapacity) : null;
+	}
+
+	// Write a .gz sibling of every output file, compressed on a pool of threads as each file is produced.
+	// The manifests record the .gz against the hash of its source so it is skipped when the source is unchanged.
+	public void setCompressOutput(boolean compressOutput)
+	{
+		this.compressionPool = compressOutput ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "vmoe-gzip");
+
+					thread.setDaemon(true);
+
+					return thread;
+				}) : null;
+	}
+
+	// also write each options, diffs and intrinsics file as newline delimited JSON next to the .json
+	public void setWriteNDJSON(boolean writeNDJSON)
+	{
+		this.writeNDJSON = writeNDJSON;
+	}
+
+	public int getWrittenCount()
+	{
+		return writtenCount.get();
+	}
+
+	public int getSkippedCount()
+	{
+		return skippedCount.get();
+	}
+
+	public int getCompressedCount()
+	{
+		return compressedCount.get();
+	}
+
+	public int getCompressedSkippedCount()
+	{
+		return compressedSkippedCount.get();
+	}
 
-		builder.append("{ \"intrinsics\" : [ ");
+	// bytes before and after compression of the .gz files written this run
+	public long getUncompressedBytes()
+	{
+		return uncompressedBytes.get();
+	}
 
-		for (Intrinsic intrinsic : intrinsics)
+	public long getCompressedBytes()
+	{
+		return compressedBytes.get();
+	}
+
+	public void serialiseSwitchInfo(Path pathToSerialisationFile, String vmName, Collection<SwitchInfo> switches) throws Exception
+	{
+		Collection<SwitchInfo> switchInfoSet = (outputQueue != null) ? copySwitches(switches) : switches;
+
+		try (PhaseTimer timer = Instrumentation.start(Phase.SERIALISE))
 		{
-			builder.append(intrinsic.serialise()).append(",\n");
+			writeFile(pathToSerialisationFile, writer -> {
+				writer.writeRaw("{ \"switches\" : [ ");
+
+				boolean first = true;
+
+				for (SwitchInfo switchInfo : switchInfoSet)
+				{
+					if (!first)
+					{
+						writer.writeRaw(",\n");
+					}
+
+					switchInfo.writeJSON(writer);
+
+					first = false;
+				}
+
+				writer.writeRaw(first ? "] }" : "\n] }");
+			});
+
+			if (writeNDJSON)
+			{
+				writeFile(getNDJSONPath(pathToSerialisationFile), writer -> {
+					writeNDJSONHeader(writer, "switches", vmName, switchInfoSet.size());
+
+					for (SwitchInfo switchInfo : switchInfoSet)
+					{
+						switchInfo.writeJSON(writer);
+
+						writer.writeRaw("\n");
+					}
+				});
+			}
+
+			timer.addSwitches(switchInfoSet.size());
 		}
+	}
+
+	public void serialiseIntrinsics(Path pathToSerialisationFile, String vmName, Collection<Intrinsic> intrinsicList) throws Exception
+	{
+		Collection<Intrinsic> intrinsics = (outputQueue != null) ? new ArrayList<>(intrinsicList) : intrinsicList;
+
+		try (PhaseTimer timer = Instrumentation.start(Phase.SERIALISE))
+		{
+			writeFile(pathToSerialisationFile, writer -> {
+				writer.writeRaw("{ \"intrinsics\" : [ ");
+
+				boolean first = true;
+
+				for (Intrinsic intrinsic : intrinsics)
+				{
+					if (!first)
+					{
+						writer.writeRaw(",\n");
+					}
+
+					intrinsic.writeJSON(writer);
+
+					first = false;
+				}
 
-		builder.deleteCharAt(builder.length() - 2);
+				writer.writeRaw(first ? "] }" : "\n] }");
+			});
 
-		builder.append("] }");
+			if (writeNDJSON)
+			{
+				writeFile(getNDJSONPath(pathToSerialisationFile), writer -> {
+					writeNDJSONHeader(writer, "intrinsics", vmName, intrinsics.size());
 
-		writeFile(pathToSerialisationFile, builder.toString());
+					for (Intrinsic intrinsic : intrinsics)
+					{
+						intrinsic.writeJSON(writer);
+
+						writer.writeRaw("\n");
+					}
+				});
+			}
+
+			timer.addSwitches(intrinsics.size());
+		}
 	}
 
 	public void serialiseDiffs(Path pathToSerialisationFile, IDeltaTable deltaTable) throws Exception
 	{
-		writeFile(pathToSerialisationFile, deltaTable.toJSON());
+		Instrumentation.time(Phase.SERIALISE, () -> {
+			writeFile(pathToSerialisationFile, deltaTable::writeJSON);
+
+			if (writeNDJSON)
+			{
+				writeFile(getNDJSONPath(pathToSerialisationFile), deltaTable::writeNDJSON);
+			}
+		});
+	}
+
+	public void serialiseCatalogue(Path pathToSerialisationFile, CatalogueWriter catalogueWriter) throws Exception
+	{
+		Instrumentation.time(Phase.SERIALISE, () -> {
+			writeStream(pathToSerialisationFile, catalogueWriter::write);
+		});
+	}
+
+	public void serialiseDeduplicated(Path pathToSerialisationFile, DeduplicatedSwitchStore store) throws Exception
+	{
+		try (PhaseTimer timer = Instrumentation.start(Phase.SERIALISE))
+		{
+			writeFile(pathToSerialisationFile, store::writeJSON);
+
+			timer.addSwitches(store.getDefinitionCount());
+		}
 	}
 
-	private void writeFile(Path outputPath, String content) throws Exception
+	public void serialisePatch(Path pathToSerialisationFile, VersionPatch patch) throws Exception
 	{
-		byte[] bytesUTF8 = content.getBytes(StandardCharsets.UTF_8);
+		Instrumentation.time(Phase.SERIALISE, patch.getVMName(), () -> {
+			writeFile(pathToSerialisationFile, patch::writeJSON);
+		});
+	}
+
+	// The build date would change every page on every run so pages are hashed with the
+	// $DATE placeholder still in place and only rewritten when their content changes.
+	public void writeHTML(Path outputPath, String template) throws IOException
+	{
+		if (outputQueue != null)
+		{
+			outputQueue.submit(() -> writeHTMLNow(outputPath, template));
+		}
+		else
+		{
+			writeHTMLNow(outputPath, template);
+		}
+	}
+
+	private void writeHTMLNow(Path outputPath, String template) throws IOException
+	{
+		String hashString = DigestUtil.sha1Hex(template.getBytes(StandardCharsets.UTF_8));
+
+		String relativePath = getRelativePath(outputPath, 2);
+
+		htmlFilenameSHA1Map.put(relativePath, hashString);
+
+		if (isUnchanged(outputPath, hashString, previousHTMLSHA1Map.get(relativePath)))
+		{
+			compressSibling(outputPath, relativePath, hashString, null, htmlFilenameSHA1Map, previousHTMLSHA1Map);
+
+			return;
+		}
+
+		byte[] html = template.replace(DATE_PLACEHOLDER, new Date().toString()).getBytes(StandardCharsets.UTF_8);
+
+		replaceFile(outputPath, html);
+
+		compressSibling(outputPath, relativePath, hashString, html, htmlFilenameSHA1Map, previousHTMLSHA1Map);
+
+		previousHTMLSHA1Map.put(relativePath, hashString);
+
+		writtenCount.incrementAndGet();
+	}
+
+	private List<SwitchInfo> copySwitches(Collection<SwitchInfo> switches)
+	{
+		List<SwitchInfo> result = new ArrayList<>(switches.size());
+
+		for (SwitchInfo switchInfo : switches)
+		{
+			result.add(new SwitchInfo(switchInfo));
+		}
+
+		return result;
+	}
+
+	// one line describing the records that follow, then one record per line
+	private void writeNDJSONHeader(JSONStreamWriter writer, String content, String vmName, int count) throws IOException
+	{
+		writer.beginObject().writeField("content", content).writeField("vm", vmName);
+		writer.writeRaw(",\"count\":").writeRaw(Integer.toString(count));
+		writer.endObject().writeRaw("\n");
+	}
+
+	// options/OpenJDK17.json -> options/OpenJDK17.ndjson
+	private Path getNDJSONPath(Path jsonPath)
+	{
+		String filename = jsonPath.getFileName().toString();
+
+		if (filename.endsWith(".json"))
+		{
+			filename = filename.substring(0, filename.length() - ".json".length());
+		}
+
+		return jsonPath.resolveSibling(filename + ".ndjson");
+	}
+
+	private void writeFile(Path outputPath, JSONContent content) throws IOException
+	{
+		writeStream(outputPath, outputStream -> {
+			JSONStreamWriter writer = new JSONStreamWriter(outputStream);
+
+			content.write(writer);
+
+			writer.flush();
+		});
+	}
+
+	private void writeStream(Path outputPath, StreamContent content) throws IOException
+	{
+		if (outputQueue != null)
+		{
+			outputQueue.submit(() -> Instrumentation.time(Phase.SERIALISE, () -> writeStreamNow(outputPath, content)));
+		}
+		else
+		{
+			writeStreamNow(outputPath, content);
+		}
+	}
+
+	// Output is streamed to a temporary sibling while it is hashed so no copy of the
+	// whole document is held in memory. The temporary file then replaces the output
+	// or is discarded when the content is unchanged.
+	//
+	// When the manifest already has a hash for the file the content is first only hashed, so an
+	// unchanged file costs no disk writes, and is streamed a second time only if it has changed.
+	private void writeStreamNow(Path outputPath, StreamContent content) throws IOException
+	{
+		String relativePath = getRelativePath(outputPath, 3);
+
+		String previousHashString = previousSHA1Map.get(relativePath);
+
+		if (incremental && previousHashString != null)
+		{
+			String hashString = hash(content);
 
-		Files.write(outputPath, bytesUTF8);
+			if (isUnchanged(outputPath, hashString, previousHashString))
+			{
+				filenameSHA1Map.put(relativePath, hashString);
 
-		MessageDigest digest = MessageDigest.getInstance("SHA-1");
-		digest.update(bytesUTF8);
-		byte[] digestBytes = digest.digest();
-		String hashString = javax.xml.bind.DatatypeConverter.printHexBinary(digestBytes);
+				compressSibling(outputPath, relativePath, hashString, null, filenameSHA1Map, previousSHA1Map);
 
+				return;
+			}
+		}
+
+		Path tempPath = createTempSibling(outputPath);
+
+		MessageDigest digest = DigestUtil.newSHA1();
+
+		try (OutputStream outputStream = new DigestOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE), digest))
+		{
+			content.write(outputStream);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			Files.deleteIfExists(tempPath);
+
+			throw e;
+		}
+
+		publish(outputPath, tempPath, DigestUtil.toHex(digest.digest()));
+	}
+
+	private String hash(StreamContent content) throws IOException
+	{
+		MessageDigest digest = DigestUtil.newSHA1();
+
+		try (OutputStream outputStream = new BufferedOutputStream(new DigestOutputStream(DISCARD, digest), BUFFER_SIZE))
+		{
+			content.write(outputStream);
+		}
+
+		return DigestUtil.toHex(digest.digest());
+	}
+
+	private void publish(Path outputPath, Path tempPath, String hashString) throws IOException
+	{
+		String relativePath = getRelativePath(outputPath, 3);
+
+		filenameSHA1Map.put(relativePath, hashString);
+
+		if (isUnchanged(outputPath, hashString, previousSHA1Map.get(relativePath)))
+		{
+			Files.delete(tempPath);
+		}
+		else
+		{
+			Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+
+			unsyncedFiles.add(outputPath);
+
+			previousSHA1Map.put(relativePath, hashString);
+
+			writtenCount.incrementAndGet();
+
+			System.out.println("Serialised to " + outputPath.toString());
+		}
+
+		compressSibling(outputPath, relativePath, hashString, null, filenameSHA1Map, previousSHA1Map);
+	}
+
+	// Written to a temporary sibling that is renamed over the output so a crash
+	// never leaves a truncated file in place of the one the manifest names.
+	private void replaceFile(Path outputPath, byte[] data) throws IOException
+	{
+		Path tempPath = createTempSibling(outputPath);
+
+		try
+		{
+			Files.write(tempPath, data);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			Files.deleteIfExists(tempPath);
+
+			throw e;
+		}
+
+		Files.move(tempPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+
+		unsyncedFiles.add(outputPath);
+	}
+
+	// data is null when the source is only on disk, it is only read back if the .gz needs writing
+	private void compressSibling(Path outputPath, String relativePath, String hashString, byte[] data,
+			Map<String, String> manifest, Map<String, String> previousManifest) throws IOException
+	{
+		if (compressionPool == null)
+		{
+			return;
+		}
+
+		String gzipRelativePath = relativePath + GZIP_SUFFIX;
+
+		Path gzipPath = outputPath.resolveSibling(outputPath.getFileName() + GZIP_SUFFIX);
+
+		manifest.put(gzipRelativePath, hashString);
+
+		if (incremental && hashString.equals(previousManifest.get(gzipRelativePath)) && Files.isRegularFile(gzipPath))
+		{
+			compressedSkippedCount.incrementAndGet();
+
+			return;
+		}
+
+		byte[] content = (data != null) ? data : Files.readAllBytes(outputPath);
+
+		Runnable task = () -> {
+			try
+			{
+				writeCompressed(gzipPath, content);
+
+				previousManifest.put(gzipRelativePath, hashString);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		};
+
+		pendingCompressions.compute(gzipPath, (path, previous) -> (previous == null) ?
+				CompletableFuture.runAsync(task, compressionPool) :
+				previous.thenRunAsync(task, compressionPool));
+	}
+
+	// GZIPOutputStream writes a zero timestamp so the same content always gives the same bytes
+	private void writeCompressed(Path gzipPath, byte[] content) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+
+		try (OutputStream outputStream = new GZIPOutputStream(bytes, BUFFER_SIZE))
+		{
+			outputStream.write(content);
+		}
+
+		replaceFile(gzipPath, bytes.toByteArray());
+
+		compressedCount.incrementAndGet();
+
+		uncompressedBytes.addAndGet(content.length);
+
+		compressedBytes.addAndGet(bytes.size());
+	}
+
+	// unique per write so concurrent writers never share a temporary file
+	private Path createTempSibling(Path outputPath)
+	{
+		return outputPath.resolveSibling("." + outputPath.getFileName() + "." + tempFileCounter.incrementAndGet() + ".tmp");
+	}
+
+	// previous maps track what is on disk so a file written twice in one run is compared with its last write
+	private boolean isUnchanged(Path outputPath, String hashString, String previousHashString)
+	{
+		boolean unchanged = incremental && hashString.equals(previousHashString) && Files.isRegularFile(outputPath);
+
+		if (unchanged)
+		{
+			skippedCount.incrementAndGet();
+		}
+
+		return unchanged;
+	}
+
+	private String getRelativePath(Path outputPath, int partsToKeep)
+	{
 		StringBuilder relativePathBuilder = new StringBuilder();
 
 		int parts = outputPath.getNameCount();
 
-		relativePathBuilder.append(outputPath.getName(parts - 3))
-						   .append('/')
-						   .append(outputPath.getName(parts - 2))
-						   .append('/')
-						   .append(outputPath.getName(parts - 1));
+		for (int i = parts - partsToKeep; i < parts; i++)
+		{
+			if (relativePathBuilder.length() > 0)
+			{
+				relativePathBuilder.append('/');
+			}
 
-		filenameSHA1Map.put(relativePathBuilder.toString(), hashString);
+			relativePathBuilder.append(outputPath.getName(i));
+		}
 
-		System.out.println("Serialised to " + outputPath.toString());
+		return relativePathBuilder.toString();
+	}
+
+	public void loadHashes(Path serialisationDir) throws IOException
+	{
+		loadManifest(serialisationDir, previousSHA1Map);
+	}
+
+	public void loadHTMLHashes(Path htmlDir) throws IOException
+	{
+		loadManifest(htmlDir, previousHTMLSHA1Map);
 	}
 
 	public void saveHashes(Path serialisationDir) throws IOException
+	{
+		flush();
+
+		saveManifest(serialisationDir, filenameSHA1Map);
+	}
+
+	public void saveHTMLHashes(Path htmlDir) throws IOException
+	{
+		flush();
+
+		saveManifest(htmlDir, htmlFilenameSHA1Map);
+	}
+
+	// Barrier before a manifest is saved: waits for queued writes and compressions and then
+	// fsyncs every file they wrote, once per file rather than once per write.
+	public void flush() throws IOException
+	{
+		if (outputQueue != null)
+		{
+			outputQueue.flush();
+		}
+
+		for (CompletableFuture<Void> compression : pendingCompressions.values())
+		{
+			try
+			{
+				compression.join();
+			}
+			catch (CompletionException e)
+			{
+				Throwable cause = e.getCause();
+
+				if (cause instanceof UncheckedIOException)
+				{
+					throw ((UncheckedIOException) cause).getCause();
+				}
+
+				throw new IOException("Compression failed", cause);
+			}
+		}
+
+		for (Path path : unsyncedFiles)
+		{
+			unsyncedFiles.remove(path);
+
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+			{
+				channel.force(true);
+			}
+		}
+	}
+
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			if (outputQueue != null)
+			{
+				outputQueue.close();
+			}
+
+			if (compressionPool != null)
+			{
+				compressionPool.shutdown();
+			}
+		}
+	}
+
+	private void loadManifest(Path dir, Map<String, String> manifest) throws IOException
+	{
+		Path manifestPath = dir.resolve(HASHES_FILENAME);
+
+		if (!Files.isRegularFile(manifestPath))
+		{
+			return;
+		}
+
+		for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8))
+		{
+			int equalsPos = line.lastIndexOf('=');
+
+			if (equalsPos != -1)
+			{
+				manifest.put(line.substring(0, equalsPos), line.substring(equalsPos + 1).trim());
+			}
+		}
+	}
+
+	private void saveManifest(Path dir, Map<String, String> manifest) throws IOException
 	{
 		StringBuilder builder = new StringBuilder();
 
-		for (Map.Entry<String, String> entry : filenameSHA1Map.entrySet())
+		for (Map.Entry<String, String> entry : manifest.entrySet())
 		{
 			builder.append(entry.getKey()).append('=').append(entry.getValue()).append("\n");
 		}
 
-		Files.write(serialisationDir.resolve(Paths.get("hashes").toString()), builder.toString().getBytes(StandardCharsets.UTF_8));
+		Path manifestPath = dir.resolve(HASHES_FILENAME);
+
+		Path tempPath = createTempSibling(manifestPath);
+
+		Files.write(tempPath, builder.toString().getBytes(StandardCharsets.UTF_8));
+
+		Files.move(tempPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private interface JSONContent
+	{
+		void write(JSONStreamWriter writer) throws IOException;
+	}
+
+	private interface StreamContent
+	{
+		void write(OutputStream outputStream) throws IOException;
 	}
-}
\ No newline at end of file
+}
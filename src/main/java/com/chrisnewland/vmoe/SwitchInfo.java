@@ -7,6 +7,7 @@ package com.chrisnewland.vmoe;
 import org.json.JSONObject;
 import org.json.JSONPropertyIgnore;
 
+import java.io.IOException;
 import java.util.Objects;
 
 public class SwitchInfo implements Comparable<SwitchInfo>
@@ -14,49 +15,73 @@ public class SwitchInfo implements Comparable<SwitchInfo>
 	public static final String PREFIX_X = "-X";
 	public static final String PREFIX_XX = "-XX:";
 
-	private String prefix;
+	private static final OrderedJSONSerialiser<SwitchInfo> SERIALISER = new OrderedJSONSerialiser<SwitchInfo>()
+			.field("prefix", SwitchInfo::getPrefix)
+			.field("name", SwitchInfo::getName)
+			.field("type", SwitchInfo::getType)
+			.field("os", SwitchInfo::getOs)
+			.field("cpu", SwitchInfo::getCpu)
+			.field("component", SwitchInfo::getComponent)
+			.field("defaultValue", SwitchInfo::getDefaultValue)
+			.field("availability", SwitchInfo::getAvailability)
+			.field("description", SwitchInfo::getDescription)
+			.field("comment", SwitchInfo::getComment)
+			.field("definedIn", SwitchInfo::getDefinedIn)
+			.field("since", SwitchInfo::getSince)
+			.field("range", SwitchInfo::getRange)
+			.field("deprecated", SwitchInfo::getDeprecated)
+			.field("obsoleted", SwitchInfo::getObsoleted)
+			.field("expired", SwitchInfo::getExpired)
+			.field("macro", SwitchInfo::getMacro);
+
+	// Low cardinality values are SymbolPool codes, the fields most switches leave null are in a
+	// shared side record. The getters return the same values as when every field was a String.
 	private String name;
-	private String type; // intx, bool, uintx, ccstr, ccstrlist, double,
-	// uint64_t
-	private String os; // aix, bsd, linux, solaris, windows
-	private String cpu; // x86, zero, ppc, sparc
-	private String component; // c1, c2, runtime, gc
 	private String defaultValue;
-	private String availability; // product, diagnostic, experimental, debug
 	private String description;
-	private String comment;
-	private String definedIn;
-	private String since;
-	private String range;
 
-	private String deprecated;
-	private String obsoleted;
-	private String expired;
-	private String macro;
+	private short prefixCode;
+	private short typeCode; // intx, bool, uintx, ccstr, ccstrlist, double, uint64_t
+	private short osCode; // aix, bsd, linux, solaris, windows
+	private short cpuCode; // x86, zero, ppc, sparc
+	private short componentCode; // c1, c2, runtime, gc
+	private short availabilityCode; // product, diagnostic, experimental, debug
+	private short definedInCode;
+	private short sinceCode;
+	private short deprecatedCode;
+	private short obsoletedCode;
+	private short expiredCode;
+
+	private Extra extra;
+
+	// comment, macro and range, immutable so copies can share it
+	private static final class Extra
+	{
+		private final String comment;
+		private final String macro;
+		private final String range;
+
+		private Extra(String comment, String macro, String range)
+		{
+			this.comment = comment;
+			this.macro = macro;
+			this.range = range;
+		}
+
+		private static Extra of(String comment, String macro, String range)
+		{
+			return (comment == null && macro == null && range == null) ? null : new Extra(comment, macro, range);
+		}
+	}
 
 	public String serialise()
 	{
-		JSONObject jsonObject = OrderedJSONObjectFactory.getJSONObject();
-
-		jsonObject.put("prefix", prefix);
-		jsonObject.put("name", name);
-		jsonObject.put("type", type);
-		jsonObject.put("os", os);
-		jsonObject.put("cpu", cpu);
-		jsonObject.put("component", component);
-		jsonObject.put("defaultValue", defaultValue);
-		jsonObject.put("availability", availability);
-		jsonObject.put("description", description);
-		jsonObject.put("comment", comment);
-		jsonObject.put("definedIn", definedIn);
-		jsonObject.put("since", since);
-		jsonObject.put("range", range);
-		jsonObject.put("deprecated", deprecated);
-		jsonObject.put("obsoleted", obsoleted);
-		jsonObject.put("expired", expired);
-		jsonObject.put("macro", macro);
-
-		return jsonObject.toString();
+		return SERIALISER.serialise(this);
+	}
+
+	public void writeJSON(JSONStreamWriter writer) throws IOException
+	{
+		SERIALISER.write(this, writer);
 	}
 
 	public static SwitchInfo deserialise(JSONObject jsonObject)
@@ -88,34 +113,78 @@ public class SwitchInfo implements Comparable<SwitchInfo>
 
 	public String getRange()
 	{
-		return range;
+		return extra == null ? null : extra.range;
 	}
 
 	public void setRange(String range)
 	{
-		this.range = range;
+		this.extra = Extra.of(getComment(), getMacro(), range);
 	}
 
 	public String getSince()
 	{
-		return since;
+		return decode(sinceCode);
 	}
 
 	public void setSince(String since)
 	{
-		this.since = since;
+		this.sinceCode = encode(since);
 	}
 
 	public SwitchInfo(String prefix, String name)
 	{
-		this.prefix = prefix;
+		this.prefixCode = encode(prefix);
 
 		this.name = name;
 	}
 
+	public SwitchInfo(SwitchInfo other)
+	{
+		this.name = other.name;
+		this.defaultValue = other.defaultValue;
+		this.description = other.description;
+		this.prefixCode = other.prefixCode;
+		this.typeCode = other.typeCode;
+		this.osCode = other.osCode;
+		this.cpuCode = other.cpuCode;
+		this.componentCode = other.componentCode;
+		this.availabilityCode = other.availabilityCode;
+		this.definedInCode = other.definedInCode;
+		this.sinceCode = other.sinceCode;
+		this.deprecatedCode = other.deprecatedCode;
+		this.obsoletedCode = other.obsoletedCode;
+		this.expiredCode = other.expiredCode;
+		this.extra = other.extra;
+	}
+
+	private static short encode(String value)
+	{
+		return (short) SymbolPool.encode(value);
+	}
+
+	private static String decode(short code)
+	{
+		return SymbolPool.decode(code & 0xFFFF);
+	}
+
+	// Equality over every field, unlike equals() which only compares names.
+	// Symbol codes are compared first as they are unique per value.
+	public boolean hasSameDefinition(SwitchInfo other)
+	{
+		return prefixCode == other.prefixCode && typeCode == other.typeCode && osCode == other.osCode && cpuCode == other.cpuCode
+				&& componentCode == other.componentCode && availabilityCode == other.availabilityCode
+				&& definedInCode == other.definedInCode && sinceCode == other.sinceCode && deprecatedCode == other.deprecatedCode
+				&& obsoletedCode == other.obsoletedCode && expiredCode == other.expiredCode && Objects.equals(name, other.name)
+				&& Objects.equals(defaultValue, other.defaultValue) && Objects.equals(description, other.description)
+				&& Objects.equals(getComment(), other.getComment()) && Objects.equals(getMacro(), other.getMacro())
+				&& Objects.equals(getRange(), other.getRange());
+	}
+
 	@JSONPropertyIgnore public String getKey()
 	{
-		return name + "_" + os + "_" + cpu + "_" + component + (macro != null ? ("_" + macro) : "");
+		String macro = getMacro();
+
+		return name + "_" + getOs() + "_" + getCpu() + "_" + getComponent() + (macro != null ? ("_" + macro) : "");
 	}
 
 	public String getName()
@@ -125,7 +194,7 @@ public class SwitchInfo implements Comparable<SwitchInfo>
 
 	public String getType()
 	{
-		return type;
+		return decode(typeCode);
 	}
 
 	public void setType(String type)
@@ -136,37 +205,37 @@ public class SwitchInfo implements Comparable<SwitchInfo>
 			type = "<dirs/jars>";
 		}
 
-		this.type = type;
+		this.typeCode = encode(type);
 	}
 
 	public String getOs()
 	{
-		return os;
+		return decode(osCode);
 	}
 
 	public void setOs(String os)
 	{
-		this.os = os;
+		this.osCode = encode(os);
 	}
 
 	public String getCpu()
 	{
-		return cpu;
+		return decode(cpuCode);
 	}
 
 	public void setCpu(String cpu)
 	{
-		this.cpu = cpu;
+		this.cpuCode = encode(cpu);
 	}
 
 	public String getComponent()
 	{
-		return component;
+		return decode(componentCode);
 	}
 
 	public void setComponent(String component)
 	{
-		this.component = component;
+		this.componentCode = encode(component);
 	}
 
 	public String getDefaultValue()
@@ -181,12 +250,12 @@ public class SwitchInfo implements Comparable<SwitchInfo>
 
 	public String getAvailability()
 	{
-		return availability;
+		return decode(availabilityCode);
 	}
 
 	public void setAvailability(String availability)
 	{
-		this.availability = availability;
+		this.availabilityCode = encode(availability);
 	}
 
 	public String getDescription()
@@ -201,77 +270,77 @@ public class SwitchInfo implements Comparable<SwitchInfo>
 
 	public String getDeprecated()
 	{
-		return deprecated;
+		return decode(deprecatedCode);
 	}
 
 	public void setDeprecated(String deprecated)
 	{
-		this.deprecated = deprecated;
+		this.deprecatedCode = encode(deprecated);
 	}
 
 	public String getObsoleted()
 	{
-		return obsoleted;
+		return decode(obsoletedCode);
 	}
 
 	public void setObsoleted(String obsoleted)
 	{
-		this.obsoleted = obsoleted;
+		this.obsoletedCode = encode(obsoleted);
 	}
 
 	public String getExpired()
 	{
-		return expired;
+		return decode(expiredCode);
 	}
 
 	public void setExpired(String expired)
 	{
-		this.expired = expired;
+		this.expiredCode = encode(expired);
 	}
 
 	public String getPrefix()
 	{
-		return prefix;
+		return decode(prefixCode);
 	}
 
 	public String getComment()
 	{
-		return comment;
+		return extra == null ? null : extra.comment;
 	}
 
 	public void setComment(String comment)
 	{
-		this.comment = comment;
+		this.extra = Extra.of(comment, getMacro(), getRange());
 	}
 
 	public String getDefinedIn()
 	{
-		return definedIn;
+		return decode(definedInCode);
 	}
 
 	public void setDefinedIn(String definedIn)
 	{
-		this.definedIn = definedIn;
+		this.definedInCode = encode(definedIn);
 	}
 
 	public String getMacro()
 	{
-		return macro;
+		return extra == null ? null : extra.macro;
 	}
 
 	public void setMacro(String macro)
 	{
-		this.macro = macro;
+		this.extra = Extra.of(getComment(), SymbolPool.intern(macro), getRange());
 	}
 
 	@Override public String toString()
 	{
-		return "SwitchInfo{" + "prefix='" + prefix + '\'' + ", name='" + name + '\'' + ", type='" + type + '\'' + ", os='" + os
-				+ '\'' + ", cpu='" + cpu + '\'' + ", component='" + component + '\'' + ", defaultValue='" + defaultValue + '\''
-				+ ", availability='" + availability + '\'' + ", description='" + description + '\'' + ", comment='" + comment + '\''
-				+ ", definedIn='" + definedIn + '\'' + ", since='" + since + '\'' + ", range='" + range + '\'' + ", deprecated='"
-				+ deprecated + '\'' + ", obsoleted='" + obsoleted + '\'' + ", expired='" + expired + '\'' + ", macro='" + macro
-				+ '\'' + '}';
+		return "SwitchInfo{" + "prefix='" + getPrefix() + '\'' + ", name='" + name + '\'' + ", type='" + getType() + '\''
+				+ ", os='" + getOs() + '\'' + ", cpu='" + getCpu() + '\'' + ", component='" + getComponent() + '\''
+				+ ", defaultValue='" + defaultValue + '\'' + ", availability='" + getAvailability() + '\'' + ", description='"
+				+ description + '\'' + ", comment='" + getComment() + '\'' + ", definedIn='" + getDefinedIn() + '\'' + ", since='"
+				+ getSince() + '\'' + ", range='" + getRange() + '\'' + ", deprecated='" + getDeprecated() + '\'' + ", obsoleted='"
+				+ getObsoleted() + '\'' + ", expired='" + getExpired() + '\'' + ", macro='" + getMacro() + '\'' + '}';
 	}
 
 	@Override public boolean equals(Object o)
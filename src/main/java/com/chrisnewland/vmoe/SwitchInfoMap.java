@@ -1,24 +1,430 @@
 /*
- * Copyright (c) 2018-2019 Chris Newland.
+ * Copyright (c) 2018-2021 Chris Newland.
  * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
  */
 package com.chrisnewland.vmoe;
 
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.Predicate;
 
-public class SwitchInfoMap extends TreeMap<String, SwitchInfo>
+// The switches of one VM keyed by SwitchInfo.getKey(), in key order. Maps are immutable: parsers put
+// switches into a Builder and freeze() sorts them once into parallel arrays so lookups are a binary
+// search and iteration walks the arrays. Keys are computed when a switch is added and kept.
+//
+// The SwitchInfo objects themselves are not frozen, callers that set "since" work on copies.
+//
+// VMs are compared by switch name. Freezing also builds a name view: one switch per name in name
+// order (the first in key order when a name has several definitions, as a TreeSet of the values
+// would hold) with the SwitchNameTable id of each name and a BitSet of those ids.
+public class SwitchInfoMap extends AbstractMap<String, SwitchInfo>
 {
-	public Set<String> getSwitchNames()
+	private static final SwitchInfoMap EMPTY = new SwitchInfoMap(new String[0], new SwitchInfo[0]);
+
+	private final String[] keys;
+
+	private final SwitchInfo[] switches;
+
+	private final SwitchInfo[] firstWithName;
+
+	private final int[] nameIds;
+
+	private final BitSet nameIdSet = new BitSet();
+
+	private final SortedSet<String> switchNames;
+
+	private final Set<Map.Entry<String, SwitchInfo>> entrySet = new EntrySet();
+
+	private SwitchInfoMap(String[] keys, SwitchInfo[] switches)
+	{
+		this.keys = keys;
+		this.switches = switches;
+
+		TreeMap<String, SwitchInfo> byName = new TreeMap<>();
+
+		for (SwitchInfo switchInfo : switches)
+		{
+			byName.putIfAbsent(switchInfo.getName(), switchInfo);
+		}
+
+		this.firstWithName = byName.values().toArray(new SwitchInfo[0]);
+
+		this.nameIds = new int[firstWithName.length];
+
+		for (int i = 0; i < firstWithName.length; i++)
+		{
+			nameIds[i] = SwitchNameTable.getId(firstWithName[i].getName());
+
+			nameIdSet.set(nameIds[i]);
+		}
+
+		this.switchNames = Collections.unmodifiableSortedSet(new TreeSet<>(byName.keySet()));
+	}
+
+	public static SwitchInfoMap empty()
+	{
+		return EMPTY;
+	}
+
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	// distinct switch names in name order, a name defined per OS or CPU appears once
+	public SortedSet<String> getSwitchNames()
+	{
+		return switchNames;
+	}
+
+	public int getNameCount()
+	{
+		return firstWithName.length;
+	}
+
+	// the switch representing the n-th name in name order
+	public SwitchInfo getFirstWithName(int nameIndex)
+	{
+		return firstWithName[nameIndex];
+	}
+
+	public int getNameId(int nameIndex)
+	{
+		return nameIds[nameIndex];
+	}
+
+	public boolean containsNameId(int nameId)
+	{
+		return nameId >= 0 && nameIdSet.get(nameId);
+	}
+
+	public boolean containsName(String name)
+	{
+		return containsNameId(SwitchNameTable.findId(name));
+	}
+
+	// a copy, for set algebra between VMs
+	public BitSet getNameIds()
 	{
-		Set<String> result = new TreeSet<>();
+		return (BitSet) nameIdSet.clone();
+	}
 
-		for (SwitchInfo switchInfo : values())
+	// one switch per name that the other map does not have, in name order
+	public List<SwitchInfo> getSwitchesWithNamesNotIn(SwitchInfoMap other)
+	{
+		List<SwitchInfo> result = new ArrayList<>();
+
+		for (int i = 0; i < nameIds.length; i++)
 		{
-			result.add(switchInfo.getName());
+			if (!other.nameIdSet.get(nameIds[i]))
+			{
+				result.add(firstWithName[i]);
+			}
 		}
 
 		return result;
 	}
-}
\ No newline at end of file
+
+	public String getKey(int index)
+	{
+		return keys[index];
+	}
+
+	public SwitchInfo get(int index)
+	{
+		return switches[index];
+	}
+
+	// position of the key or (-(insertion point) - 1) as for Arrays.binarySearch
+	public int indexOf(String key)
+	{
+		return Arrays.binarySearch(keys, key);
+	}
+
+	@Override public int size()
+	{
+		return keys.length;
+	}
+
+	@Override public boolean containsKey(Object key)
+	{
+		return key instanceof String && indexOf((String) key) >= 0;
+	}
+
+	@Override public SwitchInfo get(Object key)
+	{
+		if (key instanceof String)
+		{
+			int index = indexOf((String) key);
+
+			if (index >= 0)
+			{
+				return switches[index];
+			}
+		}
+
+		return null;
+	}
+
+	@Override public Collection<SwitchInfo> values()
+	{
+		return new AbstractList<SwitchInfo>()
+		{
+			@Override public SwitchInfo get(int index)
+			{
+				return switches[index];
+			}
+
+			@Override public int size()
+			{
+				return switches.length;
+			}
+		};
+	}
+
+	@Override public Set<String> keySet()
+	{
+		return new AbstractSet<String>()
+		{
+			@Override public Iterator<String> iterator()
+			{
+				return Arrays.asList(keys).iterator();
+			}
+
+			@Override public boolean contains(Object key)
+			{
+				return containsKey(key);
+			}
+
+			@Override public int size()
+			{
+				return keys.length;
+			}
+		};
+	}
+
+	@Override public Set<Map.Entry<String, SwitchInfo>> entrySet()
+	{
+		return entrySet;
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<String, SwitchInfo>>
+	{
+		@Override public Iterator<Map.Entry<String, SwitchInfo>> iterator()
+		{
+			return new Iterator<Map.Entry<String, SwitchInfo>>()
+			{
+				private int index;
+
+				@Override public boolean hasNext()
+				{
+					return index < keys.length;
+				}
+
+				@Override public Map.Entry<String, SwitchInfo> next()
+				{
+					if (index >= keys.length)
+					{
+						throw new NoSuchElementException();
+					}
+
+					Map.Entry<String, SwitchInfo> entry = new SimpleImmutableEntry<>(keys[index], switches[index]);
+
+					index++;
+
+					return entry;
+				}
+			};
+		}
+
+		@Override public int size()
+		{
+			return keys.length;
+		}
+	}
+
+	// Collects switches while a VM is parsed. A later switch with the same key replaces the earlier one.
+	// A name can have several keys (one per OS, CPU, component or macro) so the builder also indexes
+	// keys by name, which keeps lookups and removals by name proportional to the keys of that name.
+	public static class Builder
+	{
+		private final Map<String, SwitchInfo> switchesByKey = new HashMap<>();
+
+		private final Map<String, List<String>> keysByName = new HashMap<>();
+
+		public Builder put(SwitchInfo switchInfo)
+		{
+			return put(switchInfo.getKey(), switchInfo);
+		}
+
+		// for callers that already hold the key
+		public Builder put(String key, SwitchInfo switchInfo)
+		{
+			// a malformed declaration, the switch can't be named, compared or rendered
+			if (switchInfo.getName() == null)
+			{
+				System.err.println("Ignoring switch without a name: " + key);
+
+				return this;
+			}
+
+			SwitchInfo replaced = switchesByKey.put(key, switchInfo);
+
+			if (replaced != null)
+			{
+				unindex(replaced.getName(), key);
+			}
+
+			keysByName.computeIfAbsent(switchInfo.getName(), name -> new ArrayList<>(1)).add(key);
+
+			return this;
+		}
+
+		public Builder putAll(SwitchInfoMap map)
+		{
+			for (int i = 0; i < map.size(); i++)
+			{
+				put(map.getKey(i), map.get(i));
+			}
+
+			return this;
+		}
+
+		public SwitchInfo get(String key)
+		{
+			return switchesByKey.get(key);
+		}
+
+		// every switch with this name, empty if there are none
+		public List<SwitchInfo> getByName(String name)
+		{
+			List<String> keys = keysByName.get(name);
+
+			if (keys == null)
+			{
+				return Collections.emptyList();
+			}
+
+			List<SwitchInfo> result = new ArrayList<>(keys.size());
+
+			for (String key : keys)
+			{
+				result.add(switchesByKey.get(key));
+			}
+
+			return result;
+		}
+
+		public SwitchInfo remove(String key)
+		{
+			SwitchInfo removed = switchesByKey.remove(key);
+
+			if (removed != null)
+			{
+				unindex(removed.getName(), key);
+			}
+
+			return removed;
+		}
+
+		// returns the number of switches removed
+		public int removeByName(String name)
+		{
+			List<String> keys = keysByName.remove(name);
+
+			if (keys == null)
+			{
+				return 0;
+			}
+
+			for (String key : keys)
+			{
+				switchesByKey.remove(key);
+			}
+
+			return keys.size();
+		}
+
+		public boolean removeIf(Predicate<SwitchInfo> filter)
+		{
+			List<String> keys = new ArrayList<>();
+
+			for (Map.Entry<String, SwitchInfo> entry : switchesByKey.entrySet())
+			{
+				if (filter.test(entry.getValue()))
+				{
+					keys.add(entry.getKey());
+				}
+			}
+
+			for (String key : keys)
+			{
+				remove(key);
+			}
+
+			return !keys.isEmpty();
+		}
+
+		// the switches added so far in no particular order
+		public Collection<SwitchInfo> values()
+		{
+			return Collections.unmodifiableCollection(switchesByKey.values());
+		}
+
+		public int size()
+		{
+			return switchesByKey.size();
+		}
+
+		public SwitchInfoMap freeze()
+		{
+			if (switchesByKey.isEmpty())
+			{
+				return EMPTY;
+			}
+
+			String[] keys = switchesByKey.keySet().toArray(new String[0]);
+
+			Arrays.sort(keys);
+
+			SwitchInfo[] switches = new SwitchInfo[keys.length];
+
+			for (int i = 0; i < keys.length; i++)
+			{
+				switches[i] = switchesByKey.get(keys[i]);
+			}
+
+			return new SwitchInfoMap(keys, switches);
+		}
+
+		private void unindex(String name, String key)
+		{
+			List<String> keys = keysByName.get(name);
+
+			if (keys != null)
+			{
+				keys.remove(key);
+
+				if (keys.isEmpty())
+				{
+					keysByName.remove(name);
+				}
+			}
+		}
+	}
+}
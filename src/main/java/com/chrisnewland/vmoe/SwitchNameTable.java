@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Dense int ids for switch names across every VM so a VM's names can be held as a BitSet and two VMs
+// compared without string comparisons. Ids are assigned in first-use order, which depends on parse
+// thread timing, so they are only good for membership and never for ordering or output.
+public final class SwitchNameTable
+{
+	private static final ConcurrentMap<String, Integer> IDS = new ConcurrentHashMap<>();
+
+	private static int nextId;
+
+	private SwitchNameTable()
+	{
+	}
+
+	public static int getId(String name)
+	{
+		Integer id = IDS.get(name);
+
+		return id != null ? id : assignId(name);
+	}
+
+	// -1 if no VM has a switch with this name
+	public static int findId(String name)
+	{
+		Integer id = IDS.get(name);
+
+		return id != null ? id : -1;
+	}
+
+	public static int size()
+	{
+		return IDS.size();
+	}
+
+	private static synchronized int assignId(String name)
+	{
+		Integer id = IDS.get(name);
+
+		if (id != null)
+		{
+			return id;
+		}
+
+		IDS.put(name, nextId);
+
+		return nextId++;
+	}
+}
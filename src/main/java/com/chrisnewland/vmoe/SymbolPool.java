@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Canonical instances of the SwitchInfo values that come from a small vocabulary (type, os, cpu,
+// component, availability, prefix, macro, definedIn and the since/deprecation JDK versions).
+// Parsers produce a fresh substring for every switch so without the pool each of the ~40 VMs
+// holds its own copies of "product", "bool", "runtime"...
+//
+// Shared by every parser thread for the life of the process, the vocabulary is a few hundred strings.
+//
+// Symbols can also be encoded as a 16 bit code so SwitchInfo stores a short instead of a reference.
+// Codes are assigned in first-use order, so they are stable within a run but not between runs
+// and must never be written out or used for ordering. Code 0 is null.
+public final class SymbolPool
+{
+	// Approximate size of a String on a 64 bit JVM with compressed oops: the String object plus the
+	// array header, then 2 bytes per char on Java 8 or 1 on Java 9+ where the vocabulary is all Latin-1
+	private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+	private static final int BYTES_PER_CHAR = System.getProperty("java.specification.version").startsWith("1.") ? 2 : 1;
+
+	private static final int MAX_CODE = 0xFFFF;
+
+	private static final ConcurrentMap<String, String> POOL = new ConcurrentHashMap<>();
+
+	private static final ConcurrentMap<String, Integer> CODES = new ConcurrentHashMap<>();
+
+	// written under the lock and republished through the volatile so a reader holding a code sees its symbol
+	private static volatile String[] symbols = new String[256];
+
+	private static int nextCode = 1;
+
+	private static final LongAdder LOOKUPS = new LongAdder();
+
+	private static final LongAdder DUPLICATES = new LongAdder();
+
+	private static final LongAdder SAVED_BYTES = new LongAdder();
+
+	private SymbolPool()
+	{
+	}
+
+	public static String intern(String value)
+	{
+		if (value == null)
+		{
+			return null;
+		}
+
+		LOOKUPS.increment();
+
+		String canonical = POOL.putIfAbsent(value, value);
+
+		if (canonical == null)
+		{
+			return value;
+		}
+
+		if (canonical != value)
+		{
+			// the passed copy can now be collected
+			DUPLICATES.increment();
+
+			SAVED_BYTES.add(STRING_OVERHEAD_BYTES + ((value.length() * BYTES_PER_CHAR + 7) & ~7));
+		}
+
+		return canonical;
+	}
+
+	public static int encode(String value)
+	{
+		if (value == null)
+		{
+			return 0;
+		}
+
+		String canonical = intern(value);
+
+		Integer code = CODES.get(canonical);
+
+		return code != null ? code : assignCode(canonical);
+	}
+
+	public static String decode(int code)
+	{
+		return symbols[code];
+	}
+
+	private static synchronized int assignCode(String canonical)
+	{
+		Integer code = CODES.get(canonical);
+
+		if (code != null)
+		{
+			return code;
+		}
+
+		if (nextCode > MAX_CODE)
+		{
+			throw new IllegalStateException("More than " + MAX_CODE + " distinct symbols");
+		}
+
+		String[] current = symbols;
+
+		if (nextCode == current.length)
+		{
+			current = Arrays.copyOf(current, Math.min(current.length * 2, MAX_CODE + 1));
+		}
+
+		current[nextCode] = canonical;
+
+		// publish the array before the code can be seen
+		symbols = current;
+
+		CODES.put(canonical, nextCode);
+
+		return nextCode++;
+	}
+
+	public static int getSymbolCount()
+	{
+		return POOL.size();
+	}
+
+	public static long getLookups()
+	{
+		return LOOKUPS.sum();
+	}
+
+	public static long getDuplicates()
+	{
+		return DUPLICATES.sum();
+	}
+
+	// estimate of the heap no longer retained because duplicates were replaced by the pooled instance
+	public static long getSavedBytes()
+	{
+		return SAVED_BYTES.sum();
+	}
+}
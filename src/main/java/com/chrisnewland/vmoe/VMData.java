@@ -78,12 +78,16 @@ public class VMData
 	{
 		this.usageFile = new File(vmPath, usageFileLocation);
 
-		if (!usageFile.exists() || !usageFile.isFile())
+		return this;
+	}
+
+	// checked when the VM is added so a missing or mistyped JDK tree fails before any parsing
+	public void checkUsageFile()
+	{
+		if (usageFile != null && (!usageFile.exists() || !usageFile.isFile()))
 		{
 			throw new RuntimeException("Bad Xusage file: " + usageFile);
 		}
-
-		return this;
 	}
 
 	public String getSafeJDKName()
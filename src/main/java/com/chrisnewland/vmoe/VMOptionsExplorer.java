@@ -11,15 +11,26 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import com.chrisnewland.vmoe.cache.DiskParseCache;
+import com.chrisnewland.vmoe.catalogue.CatalogueWriter;
+import com.chrisnewland.vmoe.cache.SwitchInfoMapCache;
 import com.chrisnewland.vmoe.compare.VMDataComparator;
 import com.chrisnewland.vmoe.html.HTMLUtil;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.instrument.Phase;
 import com.chrisnewland.vmoe.parser.*;
 import com.chrisnewland.vmoe.parser.delta.GraalDeltaTable;
 import com.chrisnewland.vmoe.parser.delta.HotSpotDeltaTable;
 import com.chrisnewland.vmoe.parser.delta.IDeltaTable;
 import com.chrisnewland.vmoe.parser.deprecated.DeprecatedParser;
 import com.chrisnewland.vmoe.parser.intrinsic.IntrinsicParser;
+import com.chrisnewland.vmoe.store.DeduplicatedSwitchStore;
+import com.chrisnewland.vmoe.store.PublishedJSONLoader;
+import com.chrisnewland.vmoe.store.VersionPatch;
 
 public class VMOptionsExplorer
 {
@@ -83,27 +94,204 @@ public class VMOptionsExplorer
 
 	private Serialiser serialiser;
 
-	public VMOptionsExplorer(Path vmoeDir)
+	private boolean parallelParse;
+
+	private CatalogueWriter catalogueWriter;
+
+	private DeduplicatedSwitchStore deduplicatedStore;
+
+	private int patchKeyframeInterval;
+
+	private boolean renderOnly;
+
+	private SwitchInfoMapCache switchInfoMapCache = new SwitchInfoMapCache();
+
+	public VMOptionsExplorer(Path vmoeDir, Serialiser serialiser)
 	{
 		this.vmoeDir = vmoeDir;
+
+		this.serialiser = serialiser;
 	}
 
 	public void addVM(VMData data)
 	{
+		// render-only runs don't have the VM trees
+		if (!renderOnly)
+		{
+			data.checkUsageFile();
+		}
+
 		vmDataMap.put(data.getJdkName(), data);
 	}
 
-	public void process(Path serialiseDir, Serialiser serialiser) throws Exception
+	public void setParallelParse(boolean parallelParse)
 	{
-		this.serialiseDir = serialiseDir;
+		this.parallelParse = parallelParse;
+	}
 
-		this.serialiser = serialiser;
+	public void setWriteCatalogue(boolean writeCatalogue)
+	{
+		this.catalogueWriter = writeCatalogue ? new CatalogueWriter() : null;
+	}
+
+	public void setWriteDeduplicated(boolean writeDeduplicated)
+	{
+		this.deduplicatedStore = writeDeduplicated ? new DeduplicatedSwitchStore() : null;
+	}
+
+	// Render pages from the JSON written by an earlier run into the serialisation dir instead of the VM sources.
+	// Must be set before any VMs are added.
+	public void setRenderOnly(boolean renderOnly, Path publishedJSONDir)
+	{
+		this.renderOnly = renderOnly;
+
+		switchInfoMapCache.setPublishedJSONDir(renderOnly ? publishedJSONDir.toFile() : null);
+	}
+
+	// 0 disables the per-version patch files
+	public void setPatchKeyframeInterval(int patchKeyframeInterval)
+	{
+		this.patchKeyframeInterval = patchKeyframeInterval;
+	}
+
+	public SwitchInfoMapCache getSwitchInfoMapCache()
+	{
+		return switchInfoMapCache;
+	}
+
+	public void process(Path serialiseDir) throws Exception
+	{
+		this.serialiseDir = serialiseDir;
 
 		prepareSerialisationDir();
 
-		for (VMData vmData : vmDataMap.values())
+		if (parallelParse)
+		{
+			processParallel();
+		}
+		else
+		{
+			for (VMData vmData : vmDataMap.values())
+			{
+				SwitchInfoMap switchInfoMap = parseJDK(vmData);
+
+				recordSinceVersions(vmData, switchInfoMap);
+
+				outputJDK(vmData, switchInfoMap);
+			}
+		}
+
+		if (catalogueWriter != null)
+		{
+			Path catalogueDir = serialiseDir.resolve("catalogue");
+
+			Files.createDirectories(catalogueDir);
+
+			serialiser.serialiseCatalogue(catalogueDir.resolve("options.catalogue"), catalogueWriter);
+		}
+
+		if (deduplicatedStore != null)
+		{
+			Path dedupDir = serialiseDir.resolve("dedup");
+
+			Files.createDirectories(dedupDir);
+
+			serialiser.serialiseDeduplicated(dedupDir.resolve("options.json"), deduplicatedStore);
+
+			System.out.println("Deduplicated " + deduplicatedStore.getSwitchCount() + " switches to "
+					+ deduplicatedStore.getDefinitionCount() + " definitions");
+		}
+
+		if (patchKeyframeInterval > 0)
 		{
-			parseJDK(vmData);
+			writeVersionPatches(VMType.HOTSPOT);
+		}
+	}
+
+	// Every version after the first gets a patch against the version before it and every
+	// patchKeyframeInterval-th version (starting with the first) also gets a full keyframe.
+	// The maps come from the parse cache so they match json/options, which is written before "since" is set.
+	private void writeVersionPatches(VMType vmType) throws Exception
+	{
+		Path patchDir = serialiseDir.resolve("patches");
+
+		Files.createDirectories(patchDir);
+
+		List<VMData> vmsOfType = getVMsOfType(vmType);
+
+		VMData previousVM = null;
+
+		SwitchInfoMap previousMap = null;
+
+		for (int i = 0; i < vmsOfType.size(); i++)
+		{
+			VMData vmData = vmsOfType.get(i);
+
+			SwitchInfoMap switchInfoMap = switchInfoMapCache.getSwitchInfoMap(vmData);
+
+			String safeName = vmData.getSafeJDKName();
+
+			if (i % patchKeyframeInterval == 0)
+			{
+				serialiser.serialisePatch(patchDir.resolve(safeName + "_keyframe.json"),
+						VersionPatch.keyframe(vmData.getJdkName(), switchInfoMap));
+			}
+
+			if (previousMap != null)
+			{
+				serialiser.serialisePatch(patchDir.resolve(safeName + ".json"),
+						VersionPatch.between(previousVM.getJdkName(), previousMap, vmData.getJdkName(), switchInfoMap));
+			}
+
+			previousVM = vmData;
+
+			previousMap = switchInfoMap;
+		}
+	}
+
+	private void processParallel() throws Exception
+	{
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+		Map<VMData, ForkJoinTask<SwitchInfoMap>> parseTasks = new LinkedHashMap<>();
+
+		try
+		{
+			for (final VMData vmData : vmDataMap.values())
+			{
+				parseTasks.put(vmData, pool.submit(() -> parseJDK(vmData)));
+			}
+
+			Map<VMData, SwitchInfoMap> parsed = new LinkedHashMap<>();
+
+			for (Map.Entry<VMData, ForkJoinTask<SwitchInfoMap>> entry : parseTasks.entrySet())
+			{
+				try
+				{
+					parsed.put(entry.getKey(), entry.getValue().get());
+				}
+				catch (ExecutionException ee)
+				{
+					Throwable cause = ee.getCause();
+
+					throw (cause instanceof Exception) ? (Exception) cause : ee;
+				}
+			}
+
+			// "since" is first-seen order so reduce in registration (JDK release) order
+			for (Map.Entry<VMData, SwitchInfoMap> entry : parsed.entrySet())
+			{
+				recordSinceVersions(entry.getKey(), entry.getValue());
+			}
+
+			for (Map.Entry<VMData, SwitchInfoMap> entry : parsed.entrySet())
+			{
+				outputJDK(entry.getKey(), entry.getValue());
+			}
+		}
+		finally
+		{
+			pool.shutdown();
 		}
 	}
 
@@ -127,64 +315,66 @@ public class VMOptionsExplorer
 
 	public void processAllVMDeltasForType(VMType vmType, String title, Path templatePath, Path outputFile) throws Exception
 	{
-		StringBuilder builder = new StringBuilder();
+		Instrumentation.time(Phase.DELTAS, () -> {
+			StringBuilder builder = new StringBuilder();
 
-		List<VMData> vmsOfType = getVMsOfType(vmType);
+			List<VMData> vmsOfType = getVMsOfType(vmType);
 
-		int count = vmsOfType.size();
+			int count = vmsOfType.size();
 
-		System.out.println("processAllVMDeltasForType found " + count + " of type " + vmType);
+			System.out.println("processAllVMDeltasForType found " + count + " of type " + vmType);
 
-		if (count > 1)
-		{
-			for (int i = 0; i < count - 1; i++)
+			if (count > 1)
 			{
-				VMData earlier = vmsOfType.get(i);
-				VMData later = vmsOfType.get(i + 1);
+				for (int i = 0; i < count - 1; i++)
+				{
+					VMData earlier = vmsOfType.get(i);
+					VMData later = vmsOfType.get(i + 1);
 
-				System.out.println("processVMDeltas between " + earlier.getJdkName() + " and " + later.getJdkName());
+					System.out.println("processVMDeltas between " + earlier.getJdkName() + " and " + later.getJdkName());
 
-				addChangesBetweenVMs(earlier, later, builder);
+					addChangesBetweenVMs(earlier, later, builder);
+				}
 			}
-		}
 
-		String template = new String(Files.readAllBytes(templatePath), StandardCharsets.UTF_8);
+			String template = new String(Files.readAllBytes(templatePath), StandardCharsets.UTF_8);
 
-		String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
+			String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
 
-		template = template.replace("$HEADER_HTML", headerHTML);
-		template = template.replace("$GRAAL_VERSION", graalVersion);
-		template = template.replace("$DELTA_BODY", builder.toString());
-		template = template.replace("$DATE", new Date().toString());
-		template = template.replace("$H1_TITLE", title);
+			template = template.replace("$HEADER_HTML", headerHTML);
+			template = template.replace("$GRAAL_VERSION", graalVersion);
+			template = template.replace("$DELTA_BODY", builder.toString());
+			template = template.replace("$H1_TITLE", title);
 
-		Files.write(outputFile, template.getBytes(StandardCharsets.UTF_8));
+			serialiser.writeHTML(outputFile, template);
+		});
 	}
 
 	public void processVMDeltas(String earlierJDKName, String laterJDKName, String title, Path templatePath, Path outputFile)
 			throws Exception
 	{
-		StringBuilder builder = new StringBuilder();
+		Instrumentation.time(Phase.DELTAS, laterJDKName, () -> {
+			StringBuilder builder = new StringBuilder();
 
-		System.out.println("processVMDeltas between " + earlierJDKName + " and " + laterJDKName);
+			System.out.println("processVMDeltas between " + earlierJDKName + " and " + laterJDKName);
 
-		VMData earlier = vmDataMap.get(earlierJDKName);
+			VMData earlier = vmDataMap.get(earlierJDKName);
 
-		VMData later = vmDataMap.get(laterJDKName);
+			VMData later = vmDataMap.get(laterJDKName);
 
-		addChangesBetweenVMs(earlier, later, builder);
+			addChangesBetweenVMs(earlier, later, builder);
 
-		String template = new String(Files.readAllBytes(templatePath), StandardCharsets.UTF_8);
+			String template = new String(Files.readAllBytes(templatePath), StandardCharsets.UTF_8);
 
-		String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
+			String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
 
-		template = template.replace("$HEADER_HTML", headerHTML);
-		template = template.replace("$GRAAL_VERSION", graalVersion);
-		template = template.replace("$DELTA_BODY", builder.toString());
-		template = template.replace("$DATE", new Date().toString());
-		template = template.replace("$H1_TITLE", title);
+			template = template.replace("$HEADER_HTML", headerHTML);
+			template = template.replace("$GRAAL_VERSION", graalVersion);
+			template = template.replace("$DELTA_BODY", builder.toString());
+			template = template.replace("$H1_TITLE", title);
 
-		Files.write(outputFile, template.getBytes(StandardCharsets.UTF_8));
+			serialiser.writeHTML(outputFile, template);
+		});
 	}
 
 	private IDeltaTable createDeltaTable(VMData earlier, VMData later)
@@ -205,44 +395,46 @@ public class VMOptionsExplorer
 	{
 		System.out.println("Calculating differences between " + earlier.getJdkName() + " and " + later.getJdkName());
 
-		SwitchInfoMap switchMapEarlier = earlier.getVmType().getParser().process(earlier.getVmPath());
-
-		SwitchInfoMap switchMapLater = later.getVmType().getParser().process(later.getVmPath());
-
-		// TODO SwitchInfo equals and hashCode rely on name only
-
-		Set<SwitchInfo> inEarlier = new TreeSet<>(switchMapEarlier.values());
-
-		Set<SwitchInfo> inLater = new TreeSet<>(switchMapLater.values());
+		Path serialisationPath = Paths.get(serialiseDir.resolve(Paths.get("diffs")).toString(),
+				later.getSafeJDKName() + "_diffs.json");
 
 		IDeltaTable deltaTable = createDeltaTable(earlier, later);
 
-		for (SwitchInfo switchInfo : inEarlier)
+		if (renderOnly)
 		{
-			if (!inLater.contains(switchInfo))
-			{
-				deltaTable.recordRemoval(switchInfo);
-			}
+			PublishedJSONLoader.loadDiffs(serialisationPath, deltaTable);
 		}
-
-		for (SwitchInfo switchInfo : inLater)
+		else
 		{
-			if (!inEarlier.contains(switchInfo))
-			{
-				deltaTable.recordAddition(switchInfo);
-			}
+			recordChangesBetweenVMs(earlier, later, deltaTable);
 		}
 
 		System.out.println("Removed " + deltaTable.getRemovalCount() + " Added " + deltaTable.getAdditionCount());
 
 		builder.insert(0, deltaTable.toString());
 
-		Path serialisationPath = Paths.get(serialiseDir.resolve(Paths.get("diffs")).toString(),
-				later.getSafeJDKName() + "_diffs.json");
-
 		serialiser.serialiseDiffs(serialisationPath, deltaTable);
 	}
 
+	private void recordChangesBetweenVMs(VMData earlier, VMData later, IDeltaTable deltaTable) throws IOException
+	{
+		SwitchInfoMap switchMapEarlier = switchInfoMapCache.getParserSwitchInfoMap(earlier);
+
+		SwitchInfoMap switchMapLater = switchInfoMapCache.getParserSwitchInfoMap(later);
+
+		// TODO switches are matched by name only
+
+		for (SwitchInfo switchInfo : switchMapEarlier.getSwitchesWithNamesNotIn(switchMapLater))
+		{
+			deltaTable.recordRemoval(switchInfo);
+		}
+
+		for (SwitchInfo switchInfo : switchMapLater.getSwitchesWithNamesNotIn(switchMapEarlier))
+		{
+			deltaTable.recordAddition(switchInfo);
+		}
+	}
+
 	private List<VMData> getVMsOfType(VMType vmType)
 	{
 		List<VMData> result = new ArrayList<>();
@@ -299,36 +491,37 @@ public class VMOptionsExplorer
 
 	public void compareVMData(String vanilla, String flavour) throws IOException
 	{
-		VMData vmDataVanilla = vmDataMap.get(vanilla);
+		Instrumentation.time(Phase.COMPARISONS, flavour, () -> {
+			VMData vmDataVanilla = vmDataMap.get(vanilla);
 
-		VMData vmDataFlavour = vmDataMap.get(flavour);
+			VMData vmDataFlavour = vmDataMap.get(flavour);
 
-		StringBuilder[] result = VMDataComparator.compareVMData(vmDataVanilla, vmDataFlavour);
+			StringBuilder[] result = VMDataComparator.compareVMData(switchInfoMapCache, vmDataVanilla, vmDataFlavour);
 
-		String template = new String(Files.readAllBytes(vmoeDir.resolve("templates/template_vanilla_vs_flavoured.html")),
-				StandardCharsets.UTF_8);
+			String template = new String(Files.readAllBytes(vmoeDir.resolve("templates/template_vanilla_vs_flavoured.html")),
+					StandardCharsets.UTF_8);
 
-		String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
+			String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
 
-		template = template.replace("$HEADER_HTML", headerHTML);
+			template = template.replace("$HEADER_HTML", headerHTML);
 
-		template = template.replace("$H1_TITLE", "Switch comparison of $VANILLA_NAME vs $FLAVOUR_NAME");
+			template = template.replace("$H1_TITLE", "Switch comparison of $VANILLA_NAME vs $FLAVOUR_NAME");
 
-		template = template.replace("$GRAAL_VERSION", graalVersion);
+			template = template.replace("$GRAAL_VERSION", graalVersion);
 
-		template = template.replace("$VANILLA_NAME", vmDataVanilla.getJdkName());
-		template = template.replace("$FLAVOUR_NAME", vmDataFlavour.getJdkName());
+			template = template.replace("$VANILLA_NAME", vmDataVanilla.getJdkName());
+			template = template.replace("$FLAVOUR_NAME", vmDataFlavour.getJdkName());
 
-		template = template.replace("$FLAVOUR_ADDED", result[0].length() == 0 ? "None" : result[0]);
-		template = template.replace("$FLAVOUR_CHANGED", result[1].length() == 0 ? "None" : result[1]);
-		template = template.replace("$FLAVOUR_REMOVED", result[2].length() == 0 ? "None" : result[2]);
-		template = template.replace("$DATE", new Date().toString());
+			template = template.replace("$FLAVOUR_ADDED", result[0].length() == 0 ? "None" : result[0]);
+			template = template.replace("$FLAVOUR_CHANGED", result[1].length() == 0 ? "None" : result[1]);
+			template = template.replace("$FLAVOUR_REMOVED", result[2].length() == 0 ? "None" : result[2]);
 
-		String filename = "html/compare_" + vmDataVanilla.getSafeJDKName() + "_" + vmDataFlavour.getSafeJDKName() + ".html";
+			String filename = "html/compare_" + vmDataVanilla.getSafeJDKName() + "_" + vmDataFlavour.getSafeJDKName() + ".html";
 
-		Path outputFile = vmoeDir.resolve(filename.toLowerCase());
+			Path outputFile = vmoeDir.resolve(filename.toLowerCase());
 
-		Files.write(outputFile, template.getBytes(StandardCharsets.UTF_8));
+			serialiser.writeHTML(outputFile, template);
+		});
 	}
 
 	private String graalVersion;
@@ -338,124 +531,143 @@ public class VMOptionsExplorer
 		this.graalVersion = version;
 	}
 
-	private void parseJDK(VMData vmData) throws Exception
+	private SwitchInfoMap parseJDK(VMData vmData) throws Exception
 	{
-		File vmPath = vmData.getVmPath();
+		return Instrumentation.time(Phase.PARSE, vmData.getJdkName(), () -> switchInfoMapCache.getSwitchInfoMap(vmData));
+	}
 
-		String jdkName = vmData.getJdkName();
+	private void recordSinceVersions(VMData vmData, SwitchInfoMap switchInfoMap)
+	{
+		if (vmData.getVmType() == VMType.HOTSPOT)
+		{
+			String jdkName = vmData.getJdkName();
 
-		VMType vmType = vmData.getVmType();
+			for (SwitchInfo info : switchInfoMap.values())
+			{
+				if (!switchNameVersions.containsKey(info.getName()))
+				{
+					switchNameVersions.put(info.getName(), jdkName);
+				}
+			}
+		}
+	}
 
-		String vmName = vmData.getVmType().getDisplayName();
+	private void outputJDK(VMData vmData, SwitchInfoMap switchInfoMap) throws Exception
+	{
+		Instrumentation.time(Phase.HTML_RENDER, vmData.getJdkName(), () -> {
+			String jdkName = vmData.getJdkName();
 
-		ISwitchParser switchParser = vmData.getVmType().getParser();
+			VMType vmType = vmData.getVmType();
 
-		SwitchInfoMap switchInfoMap = switchParser.process(vmPath);
+			String vmName = vmData.getVmType().getDisplayName();
 
-		File usageFile = vmData.getUsageFile();
+			Path serialisationPath = Paths.get(serialiseDir.resolve("options").toString(), vmData.getSafeJDKName() + ".json");
 
-		if (usageFile != null)
-		{
-			SwitchInfoMap mapXUsage = new XUsageParser().process(usageFile);
+			serialiser.serialiseSwitchInfo(serialisationPath, vmData.getSafeJDKName(), switchInfoMap.values());
 
-			switchInfoMap.putAll(mapXUsage);
-		}
+			if (vmData.getUsageFile() != null)
+			{
+				Path replacedDir = serialiseDir.resolve("replaced");
 
-		Path serialisationPath = Paths.get(serialiseDir.resolve("options").toString(), vmData.getSafeJDKName() + ".json");
+				Files.createDirectories(replacedDir);
 
-		serialiser.serialiseSwitchInfo(serialisationPath, switchInfoMap.values());
+				serialiser.serialiseSwitchInfo(replacedDir.resolve(vmData.getSafeJDKName() + ".json"), vmData.getSafeJDKName(),
+						switchInfoMapCache.getReplacedSwitchInfoMap(vmData).values());
+			}
 
-		String template = new String(Files.readAllBytes(vmoeDir.resolve("templates/template.html")), StandardCharsets.UTF_8);
+			// the catalogue and the deduplicated store hold the same switches as json/options, before "since" is set
+			if (catalogueWriter != null)
+			{
+				catalogueWriter.addVM(jdkName, switchInfoMap.values());
+			}
 
-		String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
+			if (deduplicatedStore != null)
+			{
+				deduplicatedStore.addVM(jdkName, switchInfoMap.values());
+			}
 
-		StringBuilder htmlBuilder = new StringBuilder();
+			String template = new String(Files.readAllBytes(vmoeDir.resolve("templates/template.html")), StandardCharsets.UTF_8);
 
-		Set<String> switchNames = new HashSet<>();
+			String headerHTML = new String(Files.readAllBytes(vmoeDir.resolve("templates/header.html")), StandardCharsets.UTF_8);
 
-		for (Map.Entry<String, SwitchInfo> entry : switchInfoMap.entrySet())
-		{
-			SwitchInfo info = entry.getValue();
+			StringBuilder htmlBuilder = new StringBuilder();
 
-			String switchName = info.getName();
+			Set<String> switchNames = new HashSet<>();
 
-			if (vmType == VMType.HOTSPOT)
+			for (Map.Entry<String, SwitchInfo> entry : switchInfoMap.entrySet())
 			{
-				String firstSeenInJDK = switchNameVersions.get(switchName);
+				SwitchInfo info = entry.getValue();
 
-				if (firstSeenInJDK == null)
-				{
-					firstSeenInJDK = jdkName;
+				String switchName = info.getName();
 
-					switchNameVersions.put(switchName, firstSeenInJDK);
+				if (vmType == VMType.HOTSPOT)
+				{
+					info.setSince(switchNameVersions.get(switchName));
 				}
 
-				info.setSince(firstSeenInJDK);
+				htmlBuilder.append(HTMLUtil.renderSwitchInfoRow(vmType, info)).append("\n");
+
+				switchNames.add(switchName);
 			}
 
-			htmlBuilder.append(HTMLUtil.renderSwitchInfoRow(vmType, info)).append("\n");
+			template = template.replace("$HEADER_HTML", headerHTML);
 
-			switchNames.add(switchName);
-		}
+			String title = jdkName;
 
-		template = template.replace("$HEADER_HTML", headerHTML);
+			if (vmData.getVmType() == VMType.HOTSPOT)
+			{
+				title = title + " HotSpot";
+			}
 
-		String title = jdkName;
+			template = template.replace("$H1_TITLE", title);
+			template = template.replace("$GRAAL_VERSION", graalVersion);
+			template = template.replace("$THEAD", HTMLUtil.getHeaderRow(vmType));
+			template = template.replace("$VMNAME", vmName);
+			template = template.replace("$JDK", jdkName);
+			template = template.replace("$COUNT", Integer.toString(switchNames.size()));
+			template = template.replace("$TBODY", htmlBuilder.toString());
 
-		if (vmData.getVmType() == VMType.HOTSPOT)
-		{
-			title = title + " HotSpot";
-		}
+			String outputFilename = "html/" + vmData.getHTMLFilename();
 
-		template = template.replace("$H1_TITLE", title);
-		template = template.replace("$GRAAL_VERSION", graalVersion);
-		template = template.replace("$THEAD", HTMLUtil.getHeaderRow(vmType));
-		template = template.replace("$VMNAME", vmName);
-		template = template.replace("$JDK", jdkName);
-		template = template.replace("$COUNT", Integer.toString(switchNames.size()));
-		template = template.replace("$DATE", new Date().toString());
-		template = template.replace("$TBODY", htmlBuilder.toString());
+			switch (vmData.getVmType())
+			{
+			case GRAAL_VM:
+				template = template.replace("$TOPHEADER", "<th></th><th>Type</th><th></th><th></th>");
+				template = template.replace("$ALLCOLUMNS", "[ 0,1,2,3 ]");
+				template = template.replace("$SORTCOLUMNS", "[ 1 ]");
+				break;
+			case GRAAL_NATIVE:
+				template = template.replace("$TOPHEADER", "<th></th><th>Type</th><th></th><th>Availability</th><th></th>");
+				template = template.replace("$ALLCOLUMNS", "[ 0,1,2,3,4 ]");
+				template = template.replace("$SORTCOLUMNS", "[ 1,3 ]");
+				break;
+			case OPENJ9:
+				template = template.replace("$TOPHEADER", "<th>Prefix</th><th></th><th></th>");
+				template = template.replace("$ALLCOLUMNS", "[ 0,1,2 ]");
+				template = template.replace("$SORTCOLUMNS", "[0]");
+				break;
+			case HOTSPOT:
+			case MICROSOFT:
+			case SAPMACHINE:
+			case CORRETTO:
+			case DRAGONWELL:
+				template = template.replace("$TOPHEADER",
+						"<th></th><th>Since</th><th>Deprecated</th><th>Type</th><th>OS</th><th>CPU</th><th>Component</th><th></th><th>Availability</th><th></th><th></th>");
+				template = template.replace("$ALLCOLUMNS", "[ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 ]");
+				template = template.replace("$SORTCOLUMNS", "[ 1, 3, 4, 5, 6, 8 ]");
+				break;
+			case ZING:
+			case ZULU:
+				template = template.replace("$TOPHEADER", "<th></th><th>Type</th><th></th>");
+				template = template.replace("$ALLCOLUMNS", "[ 0,1,2 ]");
+				template = template.replace("$SORTCOLUMNS", "[ 1 ]");
+				break;
+			}
 
-		String outputFilename = "html/" + vmData.getHTMLFilename();
+			serialiser.writeHTML(Paths.get(outputFilename), template);
 
-		switch (vmData.getVmType())
-		{
-		case GRAAL_VM:
-			template = template.replace("$TOPHEADER", "<th></th><th>Type</th><th></th><th></th>");
-			template = template.replace("$ALLCOLUMNS", "[ 0,1,2,3 ]");
-			template = template.replace("$SORTCOLUMNS", "[ 1 ]");
-			break;
-		case GRAAL_NATIVE:
-			template = template.replace("$TOPHEADER", "<th></th><th>Type</th><th></th><th>Availability</th><th></th>");
-			template = template.replace("$ALLCOLUMNS", "[ 0,1,2,3,4 ]");
-			template = template.replace("$SORTCOLUMNS", "[ 1,3 ]");
-			break;
-		case OPENJ9:
-			template = template.replace("$TOPHEADER", "<th>Prefix</th><th></th><th></th>");
-			template = template.replace("$ALLCOLUMNS", "[ 0,1,2 ]");
-			template = template.replace("$SORTCOLUMNS", "[0]");
-			break;
-		case HOTSPOT:
-		case MICROSOFT:
-		case SAPMACHINE:
-		case CORRETTO:
-		case DRAGONWELL:
-			template = template.replace("$TOPHEADER",
-					"<th></th><th>Since</th><th>Deprecated</th><th>Type</th><th>OS</th><th>CPU</th><th>Component</th><th></th><th>Availability</th><th></th><th></th>");
-			template = template.replace("$ALLCOLUMNS", "[ 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 ]");
-			template = template.replace("$SORTCOLUMNS", "[ 1, 3, 4, 5, 6, 8 ]");
-			break;
-		case ZING:
-		case ZULU:
-			template = template.replace("$TOPHEADER", "<th></th><th>Type</th><th></th>");
-			template = template.replace("$ALLCOLUMNS", "[ 0,1,2 ]");
-			template = template.replace("$SORTCOLUMNS", "[ 1 ]");
-			break;
-		}
-
-		Files.write(Paths.get(outputFilename), template.getBytes(StandardCharsets.UTF_8));
-
-		System.out.println(jdkName + " Count: " + switchNames.size());
+			System.out.println(jdkName + " Count: " + switchNames.size());
+		});
 	}
 
 	public static void main(String[] args) throws Exception
@@ -472,6 +684,8 @@ public class VMOptionsExplorer
 
 		Path jsonOutputDir = Paths.get(args[2]);
 
+		Path htmlDir = vmoeDir.resolve("html");
+
 		boolean processHotSpot = true;
 		boolean processHotSpotDeprecated = true;
 		boolean processHotSpotIntrinsics = true;
@@ -484,9 +698,25 @@ public class VMOptionsExplorer
 		boolean processMicrosoft = true;
 		boolean processDragonwell = true;
 
+		boolean parallelParse = true;
+		boolean useParseCache = true;
+		boolean incrementalOutput = true;
+		boolean instrument = true;
+		boolean writeCatalogue = true;
+		boolean writeDeduplicated = true;
+		boolean writeNDJSON = false;
+		int outputQueueCapacity = 16;
+		boolean compressOutput = false;
+		int patchKeyframeInterval = 4;
+
+		// regenerate the pages from the JSON in <JSON output dir> without the JDK source trees
+		boolean renderOnly = false;
+
+		Instrumentation.setEnabled(instrument);
+
 		// parse deprecation info in JDK release order
 
-		if (processHotSpotDeprecated)
+		if (processHotSpotDeprecated && !renderOnly)
 		{
 			DeprecatedParser.parseFile(baseDir.resolve("jdk10"));
 			DeprecatedParser.parseFile(baseDir.resolve("jdk11"));
@@ -501,10 +731,42 @@ public class VMOptionsExplorer
 
 		String graalVersion = "21.1.0";
 
-		VMOptionsExplorer explorer = new VMOptionsExplorer(vmoeDir);
+		Serialiser serialiser = new Serialiser();
+
+		serialiser.setIncremental(incrementalOutput);
+
+		serialiser.setWriteNDJSON(writeNDJSON);
+
+		// 0 writes files on the calling thread
+		serialiser.setAsyncOutput(outputQueueCapacity);
+
+		serialiser.setCompressOutput(compressOutput);
+
+		if (incrementalOutput)
+		{
+			serialiser.loadHashes(jsonOutputDir);
+			serialiser.loadHTMLHashes(htmlDir);
+		}
+
+		VMOptionsExplorer explorer = new VMOptionsExplorer(vmoeDir, serialiser);
 
 		explorer.setGraalVersion(graalVersion);
 
+		explorer.setParallelParse(parallelParse);
+
+		explorer.setWriteCatalogue(writeCatalogue);
+
+		explorer.setWriteDeduplicated(writeDeduplicated);
+
+		explorer.setPatchKeyframeInterval(patchKeyframeInterval);
+
+		explorer.setRenderOnly(renderOnly, jsonOutputDir);
+
+		if (useParseCache && !renderOnly)
+		{
+			explorer.getSwitchInfoMapCache().setDiskParseCache(new DiskParseCache(vmoeDir.resolve("cache")));
+		}
+
 		String pre10Usage = "src/share/vm/Xusage.txt";
 		String post10Usage = "share/Xusage.txt";
 		String post13Usage = "../java.base/share/classes/sun/launcher/resources/launcher.properties";
@@ -639,9 +901,7 @@ public class VMOptionsExplorer
 		explorer.compareVMData(OPENJDK8, DRAGONWELL_JDK8);
 		explorer.compareVMData(OPENJDK11, DRAGONWELL_JDK11);
 
-		Serialiser serialiser = new Serialiser();
-
-		explorer.process(jsonOutputDir, serialiser);
+		explorer.process(jsonOutputDir);
 
 		if (processHotSpot)
 		{
@@ -691,24 +951,94 @@ public class VMOptionsExplorer
 			String post10vmSymbols = "src/hotspot/share/classfile/vmSymbols.hpp";
 			String post16vmIntrinsics = "src/hotspot/share/classfile/vmIntrinsics.hpp";
 
-			intrinsicParser.processIntrinsics(OPENJDK6, baseDir.resolve("jdk6/" + pre10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK7, baseDir.resolve("jdk7/" + pre10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK8, baseDir.resolve("jdk8/" + pre10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK9, baseDir.resolve("jdk9/" + pre10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK10, baseDir.resolve("jdk10/" + post10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK11, baseDir.resolve("jdk11/" + post10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK12, baseDir.resolve("jdk12/" + post10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK13, baseDir.resolve("jdk13/" + post10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK14, baseDir.resolve("jdk14/" + post10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK15, baseDir.resolve("jdk15/" + post10vmSymbols));
-			intrinsicParser.processIntrinsics(OPENJDK16, baseDir.resolve("jdk16/" + post10vmSymbols),
-					baseDir.resolve("jdk16/" + post16vmIntrinsics));
-			intrinsicParser.processIntrinsics(OPENJDK17, baseDir.resolve("jdk17/" + post10vmSymbols),
-					baseDir.resolve("jdk17/" + post16vmIntrinsics));
-			intrinsicParser.processIntrinsics(OPENJDK18, baseDir.resolve("jdk18/" + post10vmSymbols),
-					baseDir.resolve("jdk18/" + post16vmIntrinsics));
+			if (renderOnly)
+			{
+				for (String jdkName : new String[] { OPENJDK6, OPENJDK7, OPENJDK8, OPENJDK9, OPENJDK10, OPENJDK11, OPENJDK12,
+						OPENJDK13, OPENJDK14, OPENJDK15, OPENJDK16, OPENJDK17, OPENJDK18 })
+				{
+					intrinsicParser.renderIntrinsics(jdkName);
+				}
+			}
+			else
+			{
+				intrinsicParser.processIntrinsics(OPENJDK6, baseDir.resolve("jdk6/" + pre10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK7, baseDir.resolve("jdk7/" + pre10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK8, baseDir.resolve("jdk8/" + pre10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK9, baseDir.resolve("jdk9/" + pre10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK10, baseDir.resolve("jdk10/" + post10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK11, baseDir.resolve("jdk11/" + post10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK12, baseDir.resolve("jdk12/" + post10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK13, baseDir.resolve("jdk13/" + post10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK14, baseDir.resolve("jdk14/" + post10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK15, baseDir.resolve("jdk15/" + post10vmSymbols));
+				intrinsicParser.processIntrinsics(OPENJDK16, baseDir.resolve("jdk16/" + post10vmSymbols),
+						baseDir.resolve("jdk16/" + post16vmIntrinsics));
+				intrinsicParser.processIntrinsics(OPENJDK17, baseDir.resolve("jdk17/" + post10vmSymbols),
+						baseDir.resolve("jdk17/" + post16vmIntrinsics));
+				intrinsicParser.processIntrinsics(OPENJDK18, baseDir.resolve("jdk18/" + post10vmSymbols),
+						baseDir.resolve("jdk18/" + post16vmIntrinsics));
+			}
 		}
 
 		serialiser.saveHashes(jsonOutputDir);
+
+		serialiser.saveHTMLHashes(htmlDir);
+
+		serialiser.close();
+
+		System.out.println("Output files written: " + serialiser.getWrittenCount() + " unchanged: " + serialiser.getSkippedCount());
+
+		if (compressOutput)
+		{
+			System.out.println("Compressed files written: " + serialiser.getCompressedCount() + " unchanged: "
+					+ serialiser.getCompressedSkippedCount() + " (" + serialiser.getUncompressedBytes() + " -> "
+					+ serialiser.getCompressedBytes() + " bytes)");
+		}
+
+		SwitchInfoMapCache cache = explorer.getSwitchInfoMapCache();
+
+		System.out.println("Symbol pool: " + SymbolPool.getSymbolCount() + " symbols, " + SymbolPool.getDuplicates()
+				+ " duplicates replaced, ~" + SymbolPool.getSavedBytes() + " bytes saved");
+
+		System.out.println("Parse cache hits: " + cache.getHits() + " misses: " + cache.getMisses());
+
+		if (cache.getDiskParseCache() != null)
+		{
+			DiskParseCache diskCache = cache.getDiskParseCache();
+
+			System.out.println("Disk parse cache hits: " + diskCache.getHits() + " misses: " + diskCache.getMisses());
+		}
+
+		if (instrument)
+		{
+			Instrumentation.setCounter("outputFilesWritten", serialiser.getWrittenCount());
+			Instrumentation.setCounter("outputFilesUnchanged", serialiser.getSkippedCount());
+
+			if (compressOutput)
+			{
+				Instrumentation.setCounter("gzipFilesWritten", serialiser.getCompressedCount());
+				Instrumentation.setCounter("gzipFilesUnchanged", serialiser.getCompressedSkippedCount());
+				Instrumentation.setCounter("gzipUncompressedBytes", serialiser.getUncompressedBytes());
+				Instrumentation.setCounter("gzipCompressedBytes", serialiser.getCompressedBytes());
+			}
+			Instrumentation.setCounter("symbolPoolSymbols", SymbolPool.getSymbolCount());
+			Instrumentation.setCounter("symbolPoolLookups", SymbolPool.getLookups());
+			Instrumentation.setCounter("symbolPoolDuplicates", SymbolPool.getDuplicates());
+			Instrumentation.setCounter("symbolPoolSavedBytes", SymbolPool.getSavedBytes());
+			Instrumentation.setCounter("parseCacheHits", cache.getHits());
+			Instrumentation.setCounter("parseCacheMisses", cache.getMisses());
+
+			if (cache.getDiskParseCache() != null)
+			{
+				Instrumentation.setCounter("diskParseCacheHits", cache.getDiskParseCache().getHits());
+				Instrumentation.setCounter("diskParseCacheMisses", cache.getDiskParseCache().getMisses());
+			}
+
+			Path reportPath = vmoeDir.resolve("vmoe_report.json");
+
+			Instrumentation.writeReport(reportPath);
+
+			System.out.println("Run report written to " + reportPath);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.cache;
+
+import com.chrisnewland.vmoe.DigestUtil;
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.parser.ISwitchParser;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class DiskParseCache
+{
+	private static final int FORMAT_VERSION = 2;
+
+	private Path cacheDir;
+
+	private String codeFingerprint;
+
+	private AtomicInteger hits = new AtomicInteger();
+
+	private AtomicInteger misses = new AtomicInteger();
+
+	public DiskParseCache(Path cacheDir) throws IOException
+	{
+		this.cacheDir = cacheDir;
+
+		Files.createDirectories(cacheDir);
+
+		codeFingerprint = getCodeFingerprint();
+	}
+
+	public SwitchInfoMap getOrParse(ISwitchParser parser, File path) throws IOException
+	{
+		String parserName = parser.getClass().getName();
+
+		Path entryPath = cacheDir.resolve(DigestUtil.sha1Hex((parserName + "\n" + path.getAbsolutePath()).getBytes(StandardCharsets.UTF_8))
+				+ ".json");
+
+		List<File> sourceFiles = parser.getSourceFiles(path);
+
+		SwitchInfoMap result = null;
+
+		if (Files.exists(entryPath))
+		{
+			try
+			{
+				byte[] entryBytes = Files.readAllBytes(entryPath);
+
+				Instrumentation.addBytesRead(entryBytes.length);
+				Instrumentation.addFilesVisited(1);
+
+				JSONObject entry = new JSONObject(new String(entryBytes, StandardCharsets.UTF_8));
+
+				if (isValid(entry, parserName, path, sourceFiles))
+				{
+					result = readSwitches(entry.getJSONObject("switches"));
+				}
+			}
+			catch (JSONException je)
+			{
+				System.err.println("Ignoring corrupt parse cache entry " + entryPath + " : " + je.getMessage());
+			}
+		}
+
+		if (result != null)
+		{
+			hits.incrementAndGet();
+		}
+		else
+		{
+			misses.incrementAndGet();
+
+			result = parser.parseSources(path);
+
+			writeEntry(entryPath, parserName, path, sourceFiles, result);
+		}
+
+		// entries hold what was parsed from the sources alone so deprecation changes never invalidate them
+		parser.applyDeprecations(result);
+
+		return result;
+	}
+
+	public int getHits()
+	{
+		return hits.get();
+	}
+
+	public int getMisses()
+	{
+		return misses.get();
+	}
+
+	private boolean isValid(JSONObject entry, String parserName, File path, List<File> sourceFiles) throws IOException
+	{
+		if (entry.optInt("version") != FORMAT_VERSION || !codeFingerprint.equals(entry.optString("code")) || !parserName.equals(
+				entry.optString("parser")) || !path.getAbsolutePath().equals(entry.optString("path")))
+		{
+			return false;
+		}
+
+		JSONArray sources = entry.getJSONArray("sources");
+
+		if (sources.length() != sourceFiles.size())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < sourceFiles.size(); i++)
+		{
+			File sourceFile = sourceFiles.get(i);
+
+			JSONObject source = sources.getJSONObject(i);
+
+			if (!sourceFile.getAbsolutePath().equals(source.getString("path")) || sourceFile.length() != source.getLong("size"))
+			{
+				return false;
+			}
+
+			// touched but unchanged files (e.g. after a checkout) only cost a hash, not a parse
+			if (sourceFile.lastModified() != source.getLong("modified") && !DigestUtil.sha1Hex(sourceFile.toPath()).equals(
+					source.getString("sha1")))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private SwitchInfoMap readSwitches(JSONObject switches)
+	{
+		SwitchInfoMap.Builder result = SwitchInfoMap.builder();
+
+		for (String key : switches.keySet())
+		{
+			result.put(key, SwitchInfo.deserialise(switches.getJSONObject(key)));
+		}
+
+		return result.freeze();
+	}
+
+	private void writeEntry(Path entryPath, String parserName, File path, List<File> sourceFiles, SwitchInfoMap switchInfoMap)
+			throws IOException
+	{
+		JSONArray sources = new JSONArray();
+
+		for (File sourceFile : sourceFiles)
+		{
+			JSONObject source = new JSONObject();
+
+			source.put("path", sourceFile.getAbsolutePath());
+			source.put("size", sourceFile.length());
+			source.put("modified", sourceFile.lastModified());
+			source.put("sha1", DigestUtil.sha1Hex(sourceFile.toPath()));
+
+			sources.put(source);
+		}
+
+		JSONObject switches = new JSONObject();
+
+		for (Map.Entry<String, SwitchInfo> entry : switchInfoMap.entrySet())
+		{
+			switches.put(entry.getKey(), new JSONObject(entry.getValue().serialise()));
+		}
+
+		JSONObject entry = new JSONObject();
+
+		entry.put("version", FORMAT_VERSION);
+		entry.put("code", codeFingerprint);
+		entry.put("parser", parserName);
+		entry.put("path", path.getAbsolutePath());
+		entry.put("sources", sources);
+		entry.put("switches", switches);
+
+		Path tempPath = Files.createTempFile(cacheDir, "entry", ".tmp");
+
+		Files.write(tempPath, entry.toString().getBytes(StandardCharsets.UTF_8));
+
+		Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// a rebuilt tool may parse differently so cached results are tied to the code that produced them
+	private static String getCodeFingerprint() throws IOException
+	{
+		Path codePath;
+
+		try
+		{
+			codePath = Paths.get(DiskParseCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		}
+		catch (URISyntaxException | SecurityException | NullPointerException e)
+		{
+			// can't identify the build so never trust existing entries
+			return "unknown-" + System.currentTimeMillis();
+		}
+
+		if (Files.isDirectory(codePath))
+		{
+			long size = 0;
+			long modified = 0;
+
+			List<Path> classFiles;
+
+			try (Stream<Path> stream = Files.walk(codePath))
+			{
+				classFiles = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+			}
+
+			for (Path classFile : classFiles)
+			{
+				size += Files.size(classFile);
+				modified = Math.max(modified, Files.getLastModifiedTime(classFile).toMillis());
+			}
+
+			return size + ":" + modified;
+		}
+
+		return Files.size(codePath) + ":" + Files.getLastModifiedTime(codePath).toMillis();
+	}
+}
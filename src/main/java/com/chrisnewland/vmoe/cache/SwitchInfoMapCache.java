@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.cache;
+
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.VMData;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.instrument.Phase;
+import com.chrisnewland.vmoe.instrument.PhaseTimer;
+import com.chrisnewland.vmoe.parser.ISwitchParser;
+import com.chrisnewland.vmoe.parser.PublishedOptionsParser;
+import com.chrisnewland.vmoe.parser.XUsageParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SwitchInfoMapCache
+{
+	private ConcurrentMap<ParseKey, FutureTask<SwitchInfoMap>> cache = new ConcurrentHashMap<>();
+
+	private AtomicInteger hits = new AtomicInteger();
+
+	private AtomicInteger misses = new AtomicInteger();
+
+	private DiskParseCache diskParseCache;
+
+	private File publishedOptionsDir;
+
+	private File publishedReplacedDir;
+
+	public void setDiskParseCache(DiskParseCache diskParseCache)
+	{
+		this.diskParseCache = diskParseCache;
+	}
+
+	public DiskParseCache getDiskParseCache()
+	{
+		return diskParseCache;
+	}
+
+	// Render-only mode: switches are read from the json/options and json/replaced files of an earlier
+	// run and the VM source trees are never touched.
+	public void setPublishedJSONDir(File publishedJSONDir)
+	{
+		this.publishedOptionsDir = publishedJSONDir != null ? new File(publishedJSONDir, "options") : null;
+		this.publishedReplacedDir = publishedJSONDir != null ? new File(publishedJSONDir, "replaced") : null;
+	}
+
+	// Every call returns a private copy so callers may add switches or set "since"
+	// without affecting other consumers of the same parse.
+
+	public SwitchInfoMap getSwitchInfoMap(VMData vmData) throws IOException
+	{
+		if (publishedOptionsDir != null)
+		{
+			SwitchInfoMap.Builder result = SwitchInfoMap.builder();
+
+			// published switches already include the Xusage switches
+			copyInto(lookupPublished(vmData), result);
+
+			Instrumentation.addSwitches(result.size());
+
+			return result.freeze();
+		}
+
+		SwitchInfoMap.Builder result = SwitchInfoMap.builder();
+
+		copyInto(getParserSwitchInfoMap(vmData), result);
+
+		Instrumentation.addSwitches(result.size());
+
+		File usageFile = vmData.getUsageFile();
+
+		if (usageFile != null)
+		{
+			try (PhaseTimer timer = Instrumentation.start(Phase.USAGE_MERGE))
+			{
+				SwitchInfoMap usageSwitches = lookup(new XUsageParser(), usageFile);
+
+				copyInto(usageSwitches, result);
+
+				timer.addSwitches(usageSwitches.size());
+			}
+		}
+
+		return result.freeze();
+	}
+
+	// Switches from the VM sources only, without the Xusage switches. Unlike getSwitchInfoMap this is
+	// not a copy: the SwitchInfo objects are shared with the cache so callers must only read them.
+	public SwitchInfoMap getParserSwitchInfoMap(VMData vmData) throws IOException
+	{
+		if (publishedOptionsDir != null)
+		{
+			SwitchInfoMap.Builder result = SwitchInfoMap.builder().putAll(lookupPublished(vmData));
+
+			removeUsageSwitches(vmData, result);
+
+			result.putAll(getReplacedSwitchInfoMap(vmData));
+
+			return result.freeze();
+		}
+
+		return lookup(vmData.getVmType().getParser(), vmData.getVmPath());
+	}
+
+	// The switches from the VM sources that a usage switch with the same key replaced in getSwitchInfoMap.
+	// They are published in json/replaced so that render-only runs can restore them. Not a copy.
+	public SwitchInfoMap getReplacedSwitchInfoMap(VMData vmData) throws IOException
+	{
+		File usageFile = vmData.getUsageFile();
+
+		if (usageFile == null)
+		{
+			return SwitchInfoMap.empty();
+		}
+
+		if (publishedOptionsDir != null)
+		{
+			File replacedFile = new File(publishedReplacedDir, vmData.getSafeJDKName() + ".json");
+
+			if (!replacedFile.isFile())
+			{
+				System.err.println("Missing " + replacedFile + ", the " + vmData.getJdkName()
+						+ " comparisons will not include switches replaced by usage switches");
+
+				return SwitchInfoMap.empty();
+			}
+
+			return lookup(new PublishedOptionsParser(), replacedFile);
+		}
+
+		SwitchInfoMap usageSwitches = lookup(new XUsageParser(), usageFile);
+
+		SwitchInfoMap.Builder result = SwitchInfoMap.builder();
+
+		for (Map.Entry<String, SwitchInfo> entry : getParserSwitchInfoMap(vmData).entrySet())
+		{
+			if (usageSwitches.containsKey(entry.getKey()))
+			{
+				result.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		return result.freeze();
+	}
+
+	public int getHits()
+	{
+		return hits.get();
+	}
+
+	public int getMisses()
+	{
+		return misses.get();
+	}
+
+	private SwitchInfoMap lookup(final ISwitchParser parser, final File path) throws IOException
+	{
+		ParseKey key = new ParseKey(parser.getClass().getName(), path);
+
+		FutureTask<SwitchInfoMap> task = cache.get(key);
+
+		if (task == null)
+		{
+			FutureTask<SwitchInfoMap> newTask = new FutureTask<>(
+					() -> diskParseCache != null ? diskParseCache.getOrParse(parser, path) : parser.process(path));
+
+			task = cache.putIfAbsent(key, newTask);
+
+			if (task == null)
+			{
+				task = newTask;
+
+				misses.incrementAndGet();
+
+				newTask.run();
+			}
+			else
+			{
+				hits.incrementAndGet();
+			}
+		}
+		else
+		{
+			hits.incrementAndGet();
+		}
+
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new IOException("Interrupted while parsing " + path, ie);
+		}
+		catch (ExecutionException ee)
+		{
+			cache.remove(key, task);
+
+			Throwable cause = ee.getCause();
+
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			else if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+
+			throw new IOException("Could not parse " + path, cause);
+		}
+	}
+
+	private SwitchInfoMap lookupPublished(VMData vmData) throws IOException
+	{
+		return lookup(new PublishedOptionsParser(), new File(publishedOptionsDir, vmData.getSafeJDKName() + ".json"));
+	}
+
+	// The usage switches were merged into the published file and are recognised by their "-X" prefix and
+	// definedIn naming the usage file. The VM source switches they replaced come from json/replaced.
+	private void removeUsageSwitches(VMData vmData, SwitchInfoMap.Builder switchInfoMap)
+	{
+		File usageFile = vmData.getUsageFile();
+
+		if (usageFile != null)
+		{
+			String usageFilename = usageFile.getName();
+
+			switchInfoMap.removeIf(switchInfo -> SwitchInfo.PREFIX_X.equals(switchInfo.getPrefix())
+					&& usageFilename.equals(switchInfo.getDefinedIn()));
+		}
+	}
+
+	private void copyInto(SwitchInfoMap source, SwitchInfoMap.Builder destination)
+	{
+		for (int i = 0; i < source.size(); i++)
+		{
+			destination.put(source.getKey(i), new SwitchInfo(source.get(i)));
+		}
+	}
+
+	private static class ParseKey
+	{
+		private String parserName;
+		private File path;
+
+		ParseKey(String parserName, File path)
+		{
+			this.parserName = parserName;
+			this.path = path.getAbsoluteFile();
+		}
+
+		@Override public boolean equals(Object o)
+		{
+			if (this == o)
+				return true;
+			if (o == null || getClass() != o.getClass())
+				return false;
+			ParseKey that = (ParseKey) o;
+			return Objects.equals(parserName, that.parserName) && Objects.equals(path, that.path);
+		}
+
+		@Override public int hashCode()
+		{
+			return Objects.hash(parserName, path);
+		}
+	}
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.catalogue;
+
+import com.chrisnewland.vmoe.SwitchInfo;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.chrisnewland.vmoe.catalogue.CatalogueFormat.*;
+
+// Read-only view of a catalogue written by CatalogueWriter. Opening maps the file and reads the header,
+// every query after that goes straight to the mapped bytes so nothing is deserialised up front.
+//
+// VMs are numbered in the order they were added, switches within a VM by their position in the VM's
+// name-sorted index and records (one distinct switch definition) by their position in the file.
+public class Catalogue
+{
+	private final ByteBuffer buffer;
+
+	private final int fieldCount;
+	private final int stringCount;
+	private final int recordCount;
+	private final int vmCount;
+	private final int indexCount;
+
+	private final int fieldNamesPos;
+	private final int stringOffsetsPos;
+	private final int stringDataPos;
+	private final int recordsPos;
+	private final int vmTablePos;
+	private final int indexPos;
+
+	private final int[] columns = new int[CatalogueField.values().length];
+
+	public static Catalogue open(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.limit() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC)
+			{
+				throw new IOException("Not a switch catalogue: " + path);
+			}
+
+			if (buffer.getInt(4) != VERSION)
+			{
+				throw new IOException("Unsupported catalogue version " + buffer.getInt(4) + " in " + path);
+			}
+
+			return new Catalogue(buffer);
+		}
+	}
+
+	Catalogue(ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+
+		fieldCount = buffer.getInt(OFFSET_FIELD_COUNT);
+		stringCount = buffer.getInt(OFFSET_STRING_COUNT);
+		recordCount = buffer.getInt(OFFSET_RECORD_COUNT);
+		vmCount = buffer.getInt(OFFSET_VM_COUNT);
+		indexCount = buffer.getInt(OFFSET_INDEX_COUNT);
+
+		fieldNamesPos = buffer.getInt(OFFSET_FIELD_NAMES_POS);
+		stringOffsetsPos = buffer.getInt(OFFSET_STRING_OFFSETS_POS);
+		stringDataPos = buffer.getInt(OFFSET_STRING_DATA_POS);
+		recordsPos = buffer.getInt(OFFSET_RECORDS_POS);
+		vmTablePos = buffer.getInt(OFFSET_VM_TABLE_POS);
+		indexPos = buffer.getInt(OFFSET_INDEX_POS);
+
+		for (CatalogueField field : CatalogueField.values())
+		{
+			columns[field.ordinal()] = getFieldIndex(field.getKey());
+		}
+	}
+
+	public int getVMCount()
+	{
+		return vmCount;
+	}
+
+	public int getRecordCount()
+	{
+		return recordCount;
+	}
+
+	// switches across all VMs, counting a shared record once per VM
+	public int getSwitchCount()
+	{
+		return indexCount;
+	}
+
+	public int getFieldCount()
+	{
+		return fieldCount;
+	}
+
+	public String getFieldName(int field)
+	{
+		return getString(buffer.getInt(fieldNamesPos + field * 4));
+	}
+
+	// -1 if the catalogue was written without this field
+	public int getFieldIndex(String fieldName)
+	{
+		int id = findString(fieldName);
+
+		if (id != NO_STRING)
+		{
+			for (int i = 0; i < fieldCount; i++)
+			{
+				if (buffer.getInt(fieldNamesPos + i * 4) == id)
+				{
+					return i;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	public String getVMName(int vm)
+	{
+		return getString(buffer.getInt(vmEntryPos(vm)));
+	}
+
+	public int findVM(String vmName)
+	{
+		int id = findString(vmName);
+
+		if (id != NO_STRING)
+		{
+			for (int vm = 0; vm < vmCount; vm++)
+			{
+				if (buffer.getInt(vmEntryPos(vm)) == id)
+				{
+					return vm;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	public int getSwitchCount(int vm)
+	{
+		return buffer.getInt(vmEntryPos(vm) + 8);
+	}
+
+	// the record of the n-th switch of a VM in name order
+	public int getRecord(int vm, int position)
+	{
+		return buffer.getInt(indexPos + (buffer.getInt(vmEntryPos(vm) + 4) + position) * 4);
+	}
+
+	// Position of the first switch of the VM with this name, or -1. A name may be defined more than once
+	// (per OS, CPU or component) and the other definitions follow it in the index.
+	public int findSwitch(int vm, String switchName)
+	{
+		int nameId = findString(switchName);
+
+		if (nameId == NO_STRING)
+		{
+			return -1;
+		}
+
+		int nameColumn = columns[CatalogueField.NAME.ordinal()];
+
+		int low = 0;
+		int high = getSwitchCount(vm) - 1;
+		int found = -1;
+
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+
+			int midId = getStringId(getRecord(vm, mid), nameColumn);
+
+			if (midId < nameId)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				if (midId == nameId)
+				{
+					found = mid;
+				}
+
+				high = mid - 1;
+			}
+		}
+
+		return found;
+	}
+
+	public String getValue(int record, int field)
+	{
+		return field < 0 ? null : getString(getStringId(record, field));
+	}
+
+	public String getValue(int record, CatalogueField field)
+	{
+		return getValue(record, columns[field.ordinal()]);
+	}
+
+	public SwitchInfo getSwitchInfo(int record)
+	{
+		SwitchInfo switchInfo = new SwitchInfo(getValue(record, CatalogueField.PREFIX), getValue(record, CatalogueField.NAME));
+
+		switchInfo.setType(getValue(record, CatalogueField.TYPE));
+		switchInfo.setOs(getValue(record, CatalogueField.OS));
+		switchInfo.setCpu(getValue(record, CatalogueField.CPU));
+		switchInfo.setComponent(getValue(record, CatalogueField.COMPONENT));
+		switchInfo.setDefaultValue(getValue(record, CatalogueField.DEFAULT_VALUE));
+		switchInfo.setAvailability(getValue(record, CatalogueField.AVAILABILITY));
+		switchInfo.setDescription(getValue(record, CatalogueField.DESCRIPTION));
+		switchInfo.setComment(getValue(record, CatalogueField.COMMENT));
+		switchInfo.setDefinedIn(getValue(record, CatalogueField.DEFINED_IN));
+		switchInfo.setSince(getValue(record, CatalogueField.SINCE));
+		switchInfo.setRange(getValue(record, CatalogueField.RANGE));
+		switchInfo.setDeprecated(getValue(record, CatalogueField.DEPRECATED));
+		switchInfo.setObsoleted(getValue(record, CatalogueField.OBSOLETED));
+		switchInfo.setExpired(getValue(record, CatalogueField.EXPIRED));
+		switchInfo.setMacro(getValue(record, CatalogueField.MACRO));
+
+		return switchInfo;
+	}
+
+	private int vmEntryPos(int vm)
+	{
+		return vmTablePos + vm * VM_ENTRY_INTS * 4;
+	}
+
+	private int getStringId(int record, int field)
+	{
+		return buffer.getInt(recordsPos + (record * fieldCount + field) * 4);
+	}
+
+	private String getString(int id)
+	{
+		if (id == NO_STRING)
+		{
+			return null;
+		}
+
+		int start = buffer.getInt(stringOffsetsPos + id * 4);
+		int end = buffer.getInt(stringOffsetsPos + id * 4 + 4);
+
+		byte[] bytes = new byte[end - start];
+
+		ByteBuffer view = buffer.duplicate();
+
+		((Buffer) view).position(stringDataPos + start);
+
+		view.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// binary search of the sorted string data, comparing bytes without decoding
+	private int findString(String value)
+	{
+		byte[] target = value.getBytes(StandardCharsets.UTF_8);
+
+		int low = 0;
+		int high = stringCount - 1;
+
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+
+			int cmp = compareString(mid, target);
+
+			if (cmp < 0)
+			{
+				low = mid + 1;
+			}
+			else if (cmp > 0)
+			{
+				high = mid - 1;
+			}
+			else
+			{
+				return mid;
+			}
+		}
+
+		return NO_STRING;
+	}
+
+	private int compareString(int id, byte[] target)
+	{
+		int start = stringDataPos + buffer.getInt(stringOffsetsPos + id * 4);
+		int length = stringDataPos + buffer.getInt(stringOffsetsPos + id * 4 + 4) - start;
+
+		int common = Math.min(length, target.length);
+
+		for (int i = 0; i < common; i++)
+		{
+			int diff = (buffer.get(start + i) & 0xFF) - (target[i] & 0xFF);
+
+			if (diff != 0)
+			{
+				return diff;
+			}
+		}
+
+		return length - target.length;
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.catalogue;
+
+import com.chrisnewland.vmoe.SwitchInfo;
+
+import java.util.function.Function;
+
+// Column order of a catalogue switch record. The names are written into the catalogue
+// so readers find columns by name and new fields may be appended in later versions.
+public enum CatalogueField
+{
+	PREFIX("prefix", SwitchInfo::getPrefix),
+	NAME("name", SwitchInfo::getName),
+	TYPE("type", SwitchInfo::getType),
+	OS("os", SwitchInfo::getOs),
+	CPU("cpu", SwitchInfo::getCpu),
+	COMPONENT("component", SwitchInfo::getComponent),
+	DEFAULT_VALUE("defaultValue", SwitchInfo::getDefaultValue),
+	AVAILABILITY("availability", SwitchInfo::getAvailability),
+	DESCRIPTION("description", SwitchInfo::getDescription),
+	COMMENT("comment", SwitchInfo::getComment),
+	DEFINED_IN("definedIn", SwitchInfo::getDefinedIn),
+	SINCE("since", SwitchInfo::getSince),
+	RANGE("range", SwitchInfo::getRange),
+	DEPRECATED("deprecated", SwitchInfo::getDeprecated),
+	OBSOLETED("obsoleted", SwitchInfo::getObsoleted),
+	EXPIRED("expired", SwitchInfo::getExpired),
+	MACRO("macro", SwitchInfo::getMacro);
+
+	private final String key;
+
+	private final Function<SwitchInfo, String> getter;
+
+	CatalogueField(String key, Function<SwitchInfo, String> getter)
+	{
+		this.key = key;
+		this.getter = getter;
+	}
+
+	public String getKey()
+	{
+		return key;
+	}
+
+	public String getValue(SwitchInfo switchInfo)
+	{
+		return getter.apply(switchInfo);
+	}
+}
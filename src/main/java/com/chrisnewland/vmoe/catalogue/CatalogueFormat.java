@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.catalogue;
+
+// Layout of a switch catalogue. All values are big-endian ints and every section starts on a 4 byte boundary.
+//
+// header        MAGIC, VERSION, fieldCount, stringCount, recordCount, vmCount, indexCount,
+//               fieldNamesPos, stringOffsetsPos, stringDataPos, recordsPos, vmTablePos, indexPos
+// field names   fieldCount string ids
+// offsets       stringCount + 1 offsets into the string data, string i is [offset[i], offset[i + 1])
+// string data   UTF-8 bytes of every distinct string, sorted by unsigned byte order
+// records       recordCount rows of fieldCount string ids, NO_STRING for a missing value
+// vm table      vmCount rows of (name id, first index entry, switch count)
+// index         indexCount record ids, each VM's entries sorted by switch name
+//
+// Because the strings are sorted, comparing two string ids is the same as comparing the strings.
+// Switches defined identically in several VMs are stored as one record referenced from each VM's index.
+// Records hold the switches as written to json/options, which is before the HotSpot "since" column is filled in.
+final class CatalogueFormat
+{
+	static final int MAGIC = 0x564D4F43; // "VMOC"
+
+	static final int VERSION = 2;
+
+	static final int NO_STRING = -1;
+
+	static final int HEADER_INTS = 13;
+
+	static final int VM_ENTRY_INTS = 3;
+
+	static final int OFFSET_FIELD_COUNT = 8;
+	static final int OFFSET_STRING_COUNT = 12;
+	static final int OFFSET_RECORD_COUNT = 16;
+	static final int OFFSET_VM_COUNT = 20;
+	static final int OFFSET_INDEX_COUNT = 24;
+	static final int OFFSET_FIELD_NAMES_POS = 28;
+	static final int OFFSET_STRING_OFFSETS_POS = 32;
+	static final int OFFSET_STRING_DATA_POS = 36;
+	static final int OFFSET_RECORDS_POS = 40;
+	static final int OFFSET_VM_TABLE_POS = 44;
+	static final int OFFSET_INDEX_POS = 48;
+
+	private CatalogueFormat()
+	{
+	}
+
+	static int compareUnsigned(byte[] a, byte[] b)
+	{
+		int length = Math.min(a.length, b.length);
+
+		for (int i = 0; i < length; i++)
+		{
+			int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+
+			if (diff != 0)
+			{
+				return diff;
+			}
+		}
+
+		return a.length - b.length;
+	}
+
+	static int align(int pos)
+	{
+		return (pos + 3) & ~3;
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.catalogue;
+
+import com.chrisnewland.vmoe.SwitchInfo;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.chrisnewland.vmoe.catalogue.CatalogueFormat.*;
+
+// Collects the switches of each VM as they are output and writes them as one catalogue (see CatalogueFormat).
+// Values are copied when a VM is added so later changes to the SwitchInfo objects are not seen.
+public class CatalogueWriter
+{
+	private static final CatalogueField[] FIELDS = CatalogueField.values();
+
+	private final Map<String, Integer> stringIds = new HashMap<>();
+
+	private final List<String> strings = new ArrayList<>();
+
+	// identical switches in different VMs share one record
+	private final Map<RecordKey, Integer> recordIds = new HashMap<>();
+
+	private final List<int[]> records = new ArrayList<>();
+
+	private final List<Integer> vmNameIds = new ArrayList<>();
+
+	private final List<int[]> vmRecords = new ArrayList<>();
+
+	public synchronized void addVM(String vmName, Collection<SwitchInfo> switches)
+	{
+		int[] vmRecordIds = new int[switches.size()];
+
+		int pos = 0;
+
+		for (SwitchInfo switchInfo : switches)
+		{
+			int[] record = new int[FIELDS.length];
+
+			for (int i = 0; i < FIELDS.length; i++)
+			{
+				record[i] = getStringId(FIELDS[i].getValue(switchInfo));
+			}
+
+			RecordKey key = new RecordKey(record);
+
+			Integer recordId = recordIds.get(key);
+
+			if (recordId == null)
+			{
+				recordId = records.size();
+
+				records.add(record);
+
+				recordIds.put(key, recordId);
+			}
+
+			vmRecordIds[pos++] = recordId;
+		}
+
+		vmNameIds.add(getStringId(vmName));
+
+		vmRecords.add(vmRecordIds);
+	}
+
+	public synchronized int getVMCount()
+	{
+		return vmRecords.size();
+	}
+
+	public synchronized void write(OutputStream outputStream) throws IOException
+	{
+		for (CatalogueField field : FIELDS)
+		{
+			getStringId(field.getKey());
+		}
+
+		int stringCount = strings.size();
+
+		byte[][] encoded = new byte[stringCount][];
+
+		Integer[] order = new Integer[stringCount];
+
+		for (int i = 0; i < stringCount; i++)
+		{
+			encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (i1, i2) -> compareUnsigned(encoded[i1], encoded[i2]));
+
+		// ids were handed out in arrival order, the file uses sorted order
+		int[] sortedId = new int[stringCount];
+
+		for (int i = 0; i < stringCount; i++)
+		{
+			sortedId[order[i]] = i;
+		}
+
+		int stringDataLength = 0;
+
+		for (byte[] bytes : encoded)
+		{
+			stringDataLength += bytes.length;
+		}
+
+		int recordCount = records.size();
+
+		int indexCount = 0;
+
+		for (int[] vmRecordIds : vmRecords)
+		{
+			indexCount += vmRecordIds.length;
+		}
+
+		int fieldNamesPos = HEADER_INTS * 4;
+		int stringOffsetsPos = fieldNamesPos + FIELDS.length * 4;
+		int stringDataPos = stringOffsetsPos + (stringCount + 1) * 4;
+		int recordsPos = align(stringDataPos + stringDataLength);
+		int vmTablePos = recordsPos + recordCount * FIELDS.length * 4;
+		int indexPos = vmTablePos + vmRecords.size() * VM_ENTRY_INTS * 4;
+
+		DataOutputStream out = new DataOutputStream(outputStream);
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(FIELDS.length);
+		out.writeInt(stringCount);
+		out.writeInt(recordCount);
+		out.writeInt(vmRecords.size());
+		out.writeInt(indexCount);
+		out.writeInt(fieldNamesPos);
+		out.writeInt(stringOffsetsPos);
+		out.writeInt(stringDataPos);
+		out.writeInt(recordsPos);
+		out.writeInt(vmTablePos);
+		out.writeInt(indexPos);
+
+		for (CatalogueField field : FIELDS)
+		{
+			out.writeInt(sortedId[stringIds.get(field.getKey())]);
+		}
+
+		int offset = 0;
+
+		for (int i = 0; i < stringCount; i++)
+		{
+			out.writeInt(offset);
+			offset += encoded[order[i]].length;
+		}
+
+		out.writeInt(offset);
+
+		for (int i = 0; i < stringCount; i++)
+		{
+			out.write(encoded[order[i]]);
+		}
+
+		for (int i = stringDataPos + stringDataLength; i < recordsPos; i++)
+		{
+			out.writeByte(0);
+		}
+
+		for (int[] record : records)
+		{
+			for (int id : record)
+			{
+				out.writeInt(remap(sortedId, id));
+			}
+		}
+
+		int firstIndexEntry = 0;
+
+		for (int vm = 0; vm < vmRecords.size(); vm++)
+		{
+			out.writeInt(sortedId[vmNameIds.get(vm)]);
+			out.writeInt(firstIndexEntry);
+			out.writeInt(vmRecords.get(vm).length);
+
+			firstIndexEntry += vmRecords.get(vm).length;
+		}
+
+		int nameField = CatalogueField.NAME.ordinal();
+
+		for (int[] vmRecordIds : vmRecords)
+		{
+			Integer[] index = new Integer[vmRecordIds.length];
+
+			for (int i = 0; i < index.length; i++)
+			{
+				index[i] = vmRecordIds[i];
+			}
+
+			// stable sort keeps switches with the same name in output order
+			Arrays.sort(index, (r1, r2) -> Integer.compare(remap(sortedId, records.get(r1)[nameField]),
+					remap(sortedId, records.get(r2)[nameField])));
+
+			for (int recordId : index)
+			{
+				out.writeInt(recordId);
+			}
+		}
+
+		out.flush();
+	}
+
+	private static int remap(int[] sortedId, int id)
+	{
+		return id == NO_STRING ? NO_STRING : sortedId[id];
+	}
+
+	private int getStringId(String value)
+	{
+		if (value == null)
+		{
+			return NO_STRING;
+		}
+
+		Integer id = stringIds.get(value);
+
+		if (id == null)
+		{
+			id = strings.size();
+
+			strings.add(value);
+
+			stringIds.put(value, id);
+		}
+
+		return id;
+	}
+
+	private static class RecordKey
+	{
+		private final int[] record;
+		private final int hashCode;
+
+		RecordKey(int[] record)
+		{
+			this.record = record;
+			this.hashCode = Arrays.hashCode(record);
+		}
+
+		@Override public boolean equals(Object o)
+		{
+			return o instanceof RecordKey && Arrays.equals(record, ((RecordKey) o).record);
+		}
+
+		@Override public int hashCode()
+		{
+			return hashCode;
+		}
+	}
+}
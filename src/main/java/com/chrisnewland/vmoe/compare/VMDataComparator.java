@@ -3,14 +3,13 @@ package com.chrisnewland.vmoe.compare;
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.SwitchInfoMap;
 import com.chrisnewland.vmoe.VMData;
+import com.chrisnewland.vmoe.cache.SwitchInfoMapCache;
 
 import java.io.IOException;
-import java.util.Set;
-import java.util.TreeSet;
 
 public class VMDataComparator
 {
-	public static StringBuilder[] compareVMData(VMData vanilla, VMData flavour)
+	public static StringBuilder[] compareVMData(SwitchInfoMapCache cache, VMData vanilla, VMData flavour)
 	{
 		StringBuilder builderAdd = new StringBuilder();
 		StringBuilder builderChange = new StringBuilder();
@@ -18,23 +17,22 @@ public class VMDataComparator
 
 		try
 		{
-			SwitchInfoMap switchMapVanilla = vanilla.getVmType().getParser().process(vanilla.getVmPath());
+			SwitchInfoMap switchMapVanilla = cache.getParserSwitchInfoMap(vanilla);
 
-			SwitchInfoMap switchMapFlavour = flavour.getVmType().getParser().process(flavour.getVmPath());
+			SwitchInfoMap switchMapFlavour = cache.getParserSwitchInfoMap(flavour);
 
-			Set<SwitchInfo> inVanilla = new TreeSet<>(switchMapVanilla.values());
-
-			Set<SwitchInfo> inFlavour = new TreeSet<>(switchMapFlavour.values());
-
-			for (SwitchInfo switchInfoVanilla : inVanilla)
+			// one switch per name in name order, membership by SwitchNameTable id
+			for (int i = 0; i < switchMapVanilla.getNameCount(); i++)
 			{
+				SwitchInfo switchInfoVanilla = switchMapVanilla.getFirstWithName(i);
+
 				if ("develop".equals(switchInfoVanilla.getAvailability()) || "notproduct".equals(
 						switchInfoVanilla.getAvailability()))
 				{
 					continue;
 				}
 
-				if (!inFlavour.contains(switchInfoVanilla))
+				if (!switchMapFlavour.containsNameId(switchMapVanilla.getNameId(i)))
 				{
 					builderRemove.append("<div>")
 								 .append("<a href=\"")
@@ -77,20 +75,17 @@ public class VMDataComparator
 				}
 			}
 
-			for (SwitchInfo switchInfo : inFlavour)
+			for (SwitchInfo switchInfo : switchMapFlavour.getSwitchesWithNamesNotIn(switchMapVanilla))
 			{
-				if (!inVanilla.contains(switchInfo))
-				{
-					builderAdd.append("<div>")
-							  .append("<a href=\"")
-							  .append(flavour.getHTMLFilename())
-							  .append("?s=")
-							  .append(switchInfo.getName())
-							  .append("\">")
-							  .append(switchInfo.getName())
-							  .append("</a>")
-							  .append("</div> ");
-				}
+				builderAdd.append("<div>")
+						  .append("<a href=\"")
+						  .append(flavour.getHTMLFilename())
+						  .append("?s=")
+						  .append(switchInfo.getName())
+						  .append("\">")
+						  .append(switchInfo.getName())
+						  .append("</a>")
+						  .append("</div> ");
 			}
 		}
 		catch (IOException ioe)
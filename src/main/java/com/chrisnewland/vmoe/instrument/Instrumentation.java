@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.instrument;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.json.JSONObject;
+
+// Run-wide phase timing. Phases are started with try-with-resources around the work:
+//
+//   try (PhaseTimer timer = Instrumentation.start(Phase.PARSE, jdkName)) { ... }
+//
+// or, when the work doesn't use the timer, with Instrumentation.time(Phase.PARSE, jdkName, () -> ...)
+//
+// Timers nest per thread and a nested phase inherits the VM of its parent.
+// Counters (bytes read, files visited, switches) go to the innermost running phase.
+public final class Instrumentation
+{
+	private static final ThreadLocal<PhaseTimer> CURRENT = new ThreadLocal<>();
+
+	private static final Map<Phase, PhaseStats> PHASE_TOTALS = new EnumMap<>(Phase.class);
+
+	private static final ConcurrentMap<String, Map<Phase, PhaseStats>> VM_TOTALS = new ConcurrentHashMap<>();
+
+	private static final Map<String, Long> COUNTERS = new ConcurrentSkipListMap<>();
+
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+	private static final boolean CPU_TIME_SUPPORTED = THREAD_BEAN.isCurrentThreadCpuTimeSupported();
+
+	private static volatile boolean enabled;
+
+	private static long runStartNanos;
+
+	static
+	{
+		for (Phase phase : Phase.values())
+		{
+			PHASE_TOTALS.put(phase, new PhaseStats());
+		}
+	}
+
+	private Instrumentation()
+	{
+	}
+
+	public static void setEnabled(boolean enable)
+	{
+		if (enable && !enabled)
+		{
+			runStartNanos = System.nanoTime();
+		}
+
+		enabled = enable;
+	}
+
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public static PhaseTimer start(Phase phase)
+	{
+		return start(phase, null);
+	}
+
+	public static PhaseTimer start(Phase phase, String vmName)
+	{
+		if (!enabled)
+		{
+			return PhaseTimer.NOOP;
+		}
+
+		PhaseTimer parent = CURRENT.get();
+
+		if (parent != null)
+		{
+			parent.pause();
+
+			if (vmName == null)
+			{
+				vmName = parent.getVmName();
+			}
+		}
+
+		PhaseTimer timer = new PhaseTimer(phase, vmName, parent);
+
+		CURRENT.set(timer);
+
+		timer.resume();
+
+		return timer;
+	}
+
+	public static <E extends Exception> void time(Phase phase, TimedWork<E> work) throws E
+	{
+		time(phase, null, work);
+	}
+
+	public static <E extends Exception> void time(Phase phase, String vmName, TimedWork<E> work) throws E
+	{
+		PhaseTimer timer = start(phase, vmName);
+
+		try
+		{
+			work.run();
+		}
+		finally
+		{
+			timer.close();
+		}
+	}
+
+	public static <T, E extends Exception> T time(Phase phase, String vmName, TimedCall<T, E> call) throws E
+	{
+		PhaseTimer timer = start(phase, vmName);
+
+		try
+		{
+			return call.call();
+		}
+		finally
+		{
+			timer.close();
+		}
+	}
+
+	static void finish(PhaseTimer timer)
+	{
+		timer.pause();
+
+		PhaseTimer parent = timer.getParent();
+
+		if (parent == null)
+		{
+			CURRENT.remove();
+		}
+		else
+		{
+			CURRENT.set(parent);
+		}
+
+		timer.record(PHASE_TOTALS.get(timer.getPhase()));
+
+		if (timer.getVmName() != null)
+		{
+			Map<Phase, PhaseStats> vmStats = VM_TOTALS.computeIfAbsent(timer.getVmName(), name -> {
+				Map<Phase, PhaseStats> stats = new EnumMap<>(Phase.class);
+
+				for (Phase phase : Phase.values())
+				{
+					stats.put(phase, new PhaseStats());
+				}
+
+				return stats;
+			});
+
+			timer.record(vmStats.get(timer.getPhase()));
+		}
+
+		if (parent != null)
+		{
+			parent.resume();
+		}
+	}
+
+	public static void addBytesRead(long bytes)
+	{
+		PhaseTimer timer = CURRENT.get();
+
+		if (timer != null)
+		{
+			timer.addBytesRead(bytes);
+		}
+	}
+
+	// for readers that don't know how many bytes they consumed
+	public static void recordFileRead(Path path)
+	{
+		PhaseTimer timer = CURRENT.get();
+
+		if (timer != null)
+		{
+			timer.addBytesRead(path.toFile().length());
+			timer.addFilesVisited(1);
+		}
+	}
+
+	public static void addFilesVisited(long files)
+	{
+		PhaseTimer timer = CURRENT.get();
+
+		if (timer != null)
+		{
+			timer.addFilesVisited(files);
+		}
+	}
+
+	public static void addSwitches(long count)
+	{
+		PhaseTimer timer = CURRENT.get();
+
+		if (timer != null)
+		{
+			timer.addSwitches(count);
+		}
+	}
+
+	public static void setCounter(String name, long value)
+	{
+		if (enabled)
+		{
+			COUNTERS.put(name, value);
+		}
+	}
+
+	public static PhaseStats getPhaseStats(Phase phase)
+	{
+		return PHASE_TOTALS.get(phase);
+	}
+
+	static long currentThreadCpuNanos()
+	{
+		return CPU_TIME_SUPPORTED ? THREAD_BEAN.getCurrentThreadCpuTime() : 0;
+	}
+
+	static long currentThreadAllocatedBytes()
+	{
+		if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+			{
+				return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+
+		return 0;
+	}
+
+	// phase times are per thread so with a parallel parse their sum can exceed the run wall time
+	public static void writeReport(Path reportPath) throws IOException
+	{
+		JSONObject report = new JSONObject();
+
+		report.put("wallMillis", (System.nanoTime() - runStartNanos) / 1_000_000.0);
+		report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+
+		OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+
+		if (osBean instanceof com.sun.management.OperatingSystemMXBean)
+		{
+			report.put("processCpuMillis", ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime() / 1_000_000.0);
+		}
+
+		long gcCount = 0;
+		long gcMillis = 0;
+
+		for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			gcCount += Math.max(0, gcBean.getCollectionCount());
+			gcMillis += Math.max(0, gcBean.getCollectionTime());
+		}
+
+		JSONObject gc = new JSONObject();
+		gc.put("collections", gcCount);
+		gc.put("millis", gcMillis);
+		report.put("gc", gc);
+
+		report.put("phases", toJSON(PHASE_TOTALS));
+
+		JSONObject vms = new JSONObject();
+
+		for (Map.Entry<String, Map<Phase, PhaseStats>> entry : VM_TOTALS.entrySet())
+		{
+			vms.put(entry.getKey(), toJSON(entry.getValue()));
+		}
+
+		report.put("vms", vms);
+
+		report.put("counters", new JSONObject(COUNTERS));
+
+		Files.write(reportPath, report.toString(2).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static JSONObject toJSON(Map<Phase, PhaseStats> statsMap)
+	{
+		JSONObject jsonObject = new JSONObject();
+
+		for (Map.Entry<Phase, PhaseStats> entry : statsMap.entrySet())
+		{
+			if (entry.getValue().getCalls() > 0)
+			{
+				jsonObject.put(entry.getKey().getReportName(), entry.getValue().toJSON());
+			}
+		}
+
+		return jsonObject;
+	}
+
+	public interface TimedWork<E extends Exception>
+	{
+		void run() throws E;
+	}
+
+	public interface TimedCall<T, E extends Exception>
+	{
+		T call() throws E;
+	}
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.instrument;
+
+public enum Phase
+{
+	DISCOVERY("discovery"), PARSE("parse"), USAGE_MERGE("usageMerge"), DEPRECATION("deprecation"), SERIALISE("serialise"), HTML_RENDER(
+		"htmlRender"), DELTAS("deltas"), COMPARISONS("comparisons"), INTRINSICS("intrinsics");
+
+	private String reportName;
+
+	private Phase(String reportName)
+	{
+		this.reportName = reportName;
+	}
+
+	public String getReportName()
+	{
+		return reportName;
+	}
+}
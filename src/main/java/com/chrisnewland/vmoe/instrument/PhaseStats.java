@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.instrument;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+// Totals for one phase, either across the run or for a single VM. Updated from parse worker threads.
+public class PhaseStats
+{
+	private LongAdder calls = new LongAdder();
+	private LongAdder wallNanos = new LongAdder();
+	private LongAdder cpuNanos = new LongAdder();
+	private LongAdder allocatedBytes = new LongAdder();
+	private LongAdder bytesRead = new LongAdder();
+	private LongAdder filesVisited = new LongAdder();
+	private LongAdder switches = new LongAdder();
+
+	void add(long wall, long cpu, long allocated, long read, long files, long switchCount)
+	{
+		calls.increment();
+		wallNanos.add(wall);
+		cpuNanos.add(cpu);
+		allocatedBytes.add(allocated);
+		bytesRead.add(read);
+		filesVisited.add(files);
+		switches.add(switchCount);
+	}
+
+	public long getCalls()
+	{
+		return calls.sum();
+	}
+
+	public long getWallNanos()
+	{
+		return wallNanos.sum();
+	}
+
+	public long getCpuNanos()
+	{
+		return cpuNanos.sum();
+	}
+
+	public long getAllocatedBytes()
+	{
+		return allocatedBytes.sum();
+	}
+
+	public long getBytesRead()
+	{
+		return bytesRead.sum();
+	}
+
+	public long getFilesVisited()
+	{
+		return filesVisited.sum();
+	}
+
+	public long getSwitches()
+	{
+		return switches.sum();
+	}
+
+	JSONObject toJSON()
+	{
+		JSONObject jsonObject = new JSONObject();
+
+		jsonObject.put("calls", getCalls());
+		jsonObject.put("wallMillis", getWallNanos() / 1_000_000.0);
+		jsonObject.put("cpuMillis", getCpuNanos() / 1_000_000.0);
+		jsonObject.put("allocatedBytes", getAllocatedBytes());
+		jsonObject.put("bytesRead", getBytesRead());
+		jsonObject.put("filesVisited", getFilesVisited());
+		jsonObject.put("switches", getSwitches());
+
+		return jsonObject;
+	}
+}
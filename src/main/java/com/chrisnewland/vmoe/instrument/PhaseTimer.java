@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.instrument;
+
+// Measures one execution of a phase on the current thread.
+// While a nested phase runs this timer is paused so each phase reports its own (self) cost.
+public class PhaseTimer implements AutoCloseable
+{
+	static final PhaseTimer NOOP = new PhaseTimer(null, null, null);
+
+	private final Phase phase;
+	private final String vmName;
+	private final PhaseTimer parent;
+
+	private long wallNanos;
+	private long cpuNanos;
+	private long allocatedBytes;
+
+	private long wallStart;
+	private long cpuStart;
+	private long allocatedStart;
+
+	private long bytesRead;
+	private long filesVisited;
+	private long switches;
+
+	PhaseTimer(Phase phase, String vmName, PhaseTimer parent)
+	{
+		this.phase = phase;
+		this.vmName = vmName;
+		this.parent = parent;
+	}
+
+	Phase getPhase()
+	{
+		return phase;
+	}
+
+	String getVmName()
+	{
+		return vmName;
+	}
+
+	PhaseTimer getParent()
+	{
+		return parent;
+	}
+
+	void resume()
+	{
+		wallStart = System.nanoTime();
+		cpuStart = Instrumentation.currentThreadCpuNanos();
+		allocatedStart = Instrumentation.currentThreadAllocatedBytes();
+	}
+
+	void pause()
+	{
+		wallNanos += System.nanoTime() - wallStart;
+		cpuNanos += Instrumentation.currentThreadCpuNanos() - cpuStart;
+		allocatedBytes += Instrumentation.currentThreadAllocatedBytes() - allocatedStart;
+	}
+
+	public void addBytesRead(long bytes)
+	{
+		bytesRead += bytes;
+	}
+
+	public void addFilesVisited(long files)
+	{
+		filesVisited += files;
+	}
+
+	public void addSwitches(long count)
+	{
+		switches += count;
+	}
+
+	void record(PhaseStats stats)
+	{
+		stats.add(wallNanos, cpuNanos, allocatedBytes, bytesRead, filesVisited, switches);
+	}
+
+	@Override public void close()
+	{
+		if (this != NOOP)
+		{
+			Instrumentation.finish(this);
+		}
+	}
+}
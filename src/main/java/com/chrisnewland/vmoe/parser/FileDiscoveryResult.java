@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.parser;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public class FileDiscoveryResult
+{
+	private List<Path> files;
+	private long directoriesVisited;
+	private long directoriesPruned;
+	private long filesVisited;
+	private long elapsedNanos;
+
+	public FileDiscoveryResult(List<Path> files, long directoriesVisited, long directoriesPruned, long filesVisited,
+			long elapsedNanos)
+	{
+		this.files = files;
+		this.directoriesVisited = directoriesVisited;
+		this.directoriesPruned = directoriesPruned;
+		this.filesVisited = filesVisited;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public List<Path> getFiles()
+	{
+		return files;
+	}
+
+	public long getDirectoriesVisited()
+	{
+		return directoriesVisited;
+	}
+
+	public long getDirectoriesPruned()
+	{
+		return directoriesPruned;
+	}
+
+	public long getFilesVisited()
+	{
+		return filesVisited;
+	}
+
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	@Override public String toString()
+	{
+		return "FileDiscoveryResult [matched=" + files.size() + ", directoriesVisited=" + directoriesVisited
+				+ ", directoriesPruned=" + directoriesPruned + ", filesVisited=" + filesVisited + ", elapsedMillis="
+				+ elapsedNanos / 1_000_000 + "]";
+	}
+}
@@ -6,6 +6,7 @@ package com.chrisnewland.vmoe.parser;
 
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
 
 import java.io.File;
 import java.io.IOException;
@@ -27,10 +28,12 @@ public class GraalNativeImageSwitchParser extends AbstractSwitchParser
 	@Override
 	public SwitchInfoMap process(File vmPath) throws IOException
 	{
-		switchMap = new SwitchInfoMap();
+		switchMap = SwitchInfoMap.builder();
 
 		List<String> lines = Files.readAllLines(vmPath.toPath());
 
+		Instrumentation.recordFileRead(vmPath.toPath());
+
 		StringBuilder builder = new StringBuilder();
 
 		SwitchInfo info = null;
@@ -152,7 +155,7 @@ public class GraalNativeImageSwitchParser extends AbstractSwitchParser
 					info.setAvailability("Hosted");
 				}
 
-				switchMap.put(info.getKey(), info);
+				switchMap.put(info);
 			}
 			else
 			{
@@ -173,7 +176,7 @@ public class GraalNativeImageSwitchParser extends AbstractSwitchParser
 			builder.setLength(0);
 		}
 
-		return switchMap;
+		return switchMap.freeze();
 	}
 
 	private String getType(String value)
@@ -11,6 +11,7 @@ import java.util.List;
 
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
 
 import static com.chrisnewland.vmoe.SwitchInfo.PREFIX_XX;
 
@@ -19,10 +20,12 @@ public class GraalVMSwitchParser extends AbstractSwitchParser
 	@Override
 	public SwitchInfoMap process(File vmPath) throws IOException
 	{
-		switchMap = new SwitchInfoMap();
+		switchMap = SwitchInfoMap.builder();
 		
 		List<String> lines = Files.readAllLines(vmPath.toPath());
 
+		Instrumentation.recordFileRead(vmPath.toPath());
+
 		StringBuilder builder = new StringBuilder();
 
 		SwitchInfo info = null;
@@ -61,7 +64,7 @@ public class GraalVMSwitchParser extends AbstractSwitchParser
 
 				// System.out.println(info.toString());
 
-				switchMap.put(info.getKey(), info);
+				switchMap.put(info);
 			}
 			else if (isGraalSection(line))
 			{
@@ -105,7 +108,7 @@ public class GraalVMSwitchParser extends AbstractSwitchParser
 			builder.setLength(0);
 		}
 		
-		return switchMap;
+		return switchMap.freeze();
 
 	}
 
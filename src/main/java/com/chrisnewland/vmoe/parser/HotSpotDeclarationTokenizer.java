@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Accumulates the continuation lines of a globals.hpp flag declaration and splits it into its
+// macro arguments and trailing comment.
+// Adjacent string literals ("" between lines) become <br> and whitespace runs collapse to a
+// single space as the lines are appended so the declaration is only walked once more when tokenized.
+public class HotSpotDeclarationTokenizer
+{
+	private char[] chars = new char[1024];
+	private int length = 0;
+
+	private boolean pendingQuote = false;
+	private boolean inWhitespace = false;
+
+	private char[] partChars = new char[256];
+	private int partLength = 0;
+
+	private final List<String> parts = new ArrayList<>();
+
+	private String comment;
+
+	public void append(String text)
+	{
+		append(text, 0);
+	}
+
+	public void append(String text, int from)
+	{
+		final int textLength = text.length();
+
+		ensureCapacity(length + (textLength - from) * 2);
+
+		for (int i = from; i < textLength; i++)
+		{
+			char c = text.charAt(i);
+
+			if (c == '"')
+			{
+				if (pendingQuote)
+				{
+					length--;
+					chars[length++] = '<';
+					chars[length++] = 'b';
+					chars[length++] = 'r';
+					chars[length++] = '>';
+					pendingQuote = false;
+				}
+				else
+				{
+					chars[length++] = c;
+					pendingQuote = true;
+				}
+
+				inWhitespace = false;
+			}
+			else if (isWhitespace(c))
+			{
+				if (!inWhitespace)
+				{
+					chars[length++] = ' ';
+					inWhitespace = true;
+				}
+
+				pendingQuote = false;
+			}
+			else
+			{
+				chars[length++] = c;
+				pendingQuote = false;
+				inWhitespace = false;
+			}
+		}
+	}
+
+	// splits the arguments between the first '(' and the line ending, then resets for the next declaration
+	public void tokenize(String expectedLineEnding)
+	{
+		parts.clear();
+		comment = null;
+
+		int lineEndingPos = indexOf(expectedLineEnding, 0);
+
+		if (lineEndingPos == -1)
+		{
+			lineEndingPos = length;
+		}
+
+		int commentPos = indexOf("//", lineEndingPos);
+
+		if (commentPos != -1)
+		{
+			comment = new String(chars, commentPos, length - commentPos);
+		}
+
+		int start = 0;
+
+		for (int i = 0; i < lineEndingPos; i++)
+		{
+			if (chars[i] == '(')
+			{
+				start = i + 1;
+				break;
+			}
+		}
+
+		boolean inQuotes = false;
+
+		partLength = 0;
+
+		for (int i = start; i < lineEndingPos; i++)
+		{
+			char c = chars[i];
+
+			if (inQuotes)
+			{
+				if (c == '"')
+				{
+					inQuotes = false;
+					addPart();
+				}
+				else
+				{
+					addPartChar(c);
+				}
+			}
+			else if (c == '"')
+			{
+				inQuotes = true;
+			}
+			else if (c == ',')
+			{
+				addPart();
+			}
+			else
+			{
+				addPartChar(c);
+			}
+		}
+
+		addPart();
+
+		length = 0;
+		pendingQuote = false;
+		inWhitespace = false;
+	}
+
+	public int getPartCount()
+	{
+		return parts.size();
+	}
+
+	public String getPart(int index)
+	{
+		return index < parts.size() ? parts.get(index) : null;
+	}
+
+	public List<String> getParts()
+	{
+		return parts;
+	}
+
+	public String getComment()
+	{
+		return comment;
+	}
+
+	private void addPartChar(char c)
+	{
+		if (partLength == partChars.length)
+		{
+			char[] grown = new char[partChars.length * 2];
+			System.arraycopy(partChars, 0, grown, 0, partLength);
+			partChars = grown;
+		}
+
+		partChars[partLength++] = c;
+	}
+
+	// same as String.trim() then discarding empty parts
+	private void addPart()
+	{
+		int from = 0;
+		int to = partLength;
+
+		while (from < to && partChars[from] <= ' ')
+		{
+			from++;
+		}
+
+		while (to > from && partChars[to - 1] <= ' ')
+		{
+			to--;
+		}
+
+		if (to > from)
+		{
+			parts.add(new String(partChars, from, to - from));
+		}
+
+		partLength = 0;
+	}
+
+	private int indexOf(String value, int from)
+	{
+		final int valueLength = value.length();
+
+		outer:
+		for (int i = from; i <= length - valueLength; i++)
+		{
+			for (int j = 0; j < valueLength; j++)
+			{
+				if (chars[i + j] != value.charAt(j))
+				{
+					continue outer;
+				}
+			}
+
+			return i;
+		}
+
+		return -1;
+	}
+
+	private void ensureCapacity(int required)
+	{
+		if (required > chars.length)
+		{
+			char[] grown = new char[Math.max(required, chars.length * 2)];
+			System.arraycopy(chars, 0, grown, 0, length);
+			chars = grown;
+		}
+	}
+
+	// the characters matched by the regex \s
+	private boolean isWhitespace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+	}
+}
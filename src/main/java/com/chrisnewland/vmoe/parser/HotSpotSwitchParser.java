@@ -6,36 +6,107 @@ package com.chrisnewland.vmoe.parser;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.chrisnewland.vmoe.SwitchInfo.PREFIX_XX;
 
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.instrument.Phase;
+import com.chrisnewland.vmoe.instrument.PhaseTimer;
 import com.chrisnewland.vmoe.parser.deprecated.DeprecatedInfo;
 import com.chrisnewland.vmoe.parser.deprecated.DeprecatedParser;
 
 public class HotSpotSwitchParser extends AbstractSwitchParser
 {
+	// Pre JDK10 the VM path is the root of the hotspot repo which also holds the build, tests and the
+	// serviceability agent. From JDK10 it is src/hotspot which only holds sources.
+	private static final List<String> PRUNED_DIRECTORIES_HOTSPOT_REPO = Arrays.asList(".hg", ".git", "test", "make",
+			"agent", "build", "doc", "docs");
+
+	private static final List<String> PRUNED_DIRECTORIES_SRC_HOTSPOT = Arrays.asList(".hg", ".git");
+
+	private static final SourceFileFinder.FileNameMatcher GLOBALS_MATCHER = filename -> filename.contains("globals")
+			&& filename.endsWith(".hpp");
+
+	private static final SourceFileFinder HOTSPOT_REPO_FINDER = new SourceFileFinder(PRUNED_DIRECTORIES_HOTSPOT_REPO,
+			GLOBALS_MATCHER, true);
+
+	private static final SourceFileFinder SRC_HOTSPOT_FINDER = new SourceFileFinder(PRUNED_DIRECTORIES_SRC_HOTSPOT,
+			GLOBALS_MATCHER, true);
+
+	private static final String JFR_ONLY = "JFR_ONLY(";
+
+	private static final byte[] JFR_ONLY_BYTES = JFR_ONLY.getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] PD_BYTES = "_pd".getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[][] DECLARATION_TOKENS = toBytes("define_pd_global", "product", "product_rw", "develop",
+			"lp64_product", "notproduct", "diagnostic", "experimental", "manageable", "range", "NOT_EMBEDDED", "EMBEDDED_ONLY");
+
+	private FileDiscoveryResult discoveryResult;
+
 	@Override public SwitchInfoMap process(File vmPath) throws IOException
 	{
-		switchMap = new SwitchInfoMap();
+		SwitchInfoMap result = parseSources(vmPath);
+
+		applyDeprecations(result);
+
+		return result;
+	}
+
+	@Override public SwitchInfoMap parseSources(File vmPath) throws IOException
+	{
+		switchMap = SwitchInfoMap.builder();
+
+		File canonicalVmPath = vmPath.getCanonicalFile();
 
 		for (File hotspotFile : findSwitchFilesHotSpot(vmPath))
 		{
-			parseFile(hotspotFile, vmPath);
+			parseFile(hotspotFile, new SourceFileMetadata(hotspotFile, canonicalVmPath));
 		}
 
-		return switchMap;
+		return switchMap.freeze();
 	}
 
-	private void parseFile(File hotspotFile, File vmPath) throws IOException
+	// DeprecatedParser holds the merged deprecation tables of every JDK parsed so far
+	@Override public void applyDeprecations(SwitchInfoMap switches)
 	{
-		List<String> lines = Files.readAllLines(hotspotFile.toPath());
+		for (SwitchInfo info : switches.values())
+		{
+			DeprecatedInfo deprecatedInfo = DeprecatedParser.getDeprecatedInfo(info.getName());
+
+			if (deprecatedInfo != null)
+			{
+				info.setDeprecated(deprecatedInfo.getDeprecatedInJDK());
+				info.setObsoleted(deprecatedInfo.getObsoletedInJDK());
+				info.setExpired(deprecatedInfo.getExpiredInJDK());
+			}
+		}
+	}
 
-		StringBuilder lineBuilder = new StringBuilder();
+	public FileDiscoveryResult getDiscoveryResult()
+	{
+		return discoveryResult;
+	}
+
+	@Override public List<File> getSourceFiles(File vmPath) throws IOException
+	{
+		return findSwitchFilesHotSpot(vmPath);
+	}
+
+	private void parseFile(File hotspotFile, SourceFileMetadata metadata) throws IOException
+	{
+		MappedLineScanner scanner = new MappedLineScanner(hotspotFile.toPath());
+
+		Instrumentation.recordFileRead(hotspotFile.toPath());
+
+		HotSpotDeclarationTokenizer tokenizer = new HotSpotDeclarationTokenizer();
 
 		boolean inLine = false;
 
@@ -50,9 +121,14 @@ public class HotSpotSwitchParser extends AbstractSwitchParser
 
 		String macroName = null;
 
-		for (String line : lines)
+		while (scanner.nextLine())
 		{
-			String trimmed = line.replace("\\\"", "'").replace("\\", "").replace("\" )", "\")").replace("JFR_ONLY(", "").trim();
+			if (!inLine && !mayStartDeclaration(scanner))
+			{
+				continue;
+			}
+
+			String trimmed = normaliseLine(scanner.decodeLine());
 
 			//System.out.println(trimmed);
 
@@ -142,61 +218,37 @@ public class HotSpotSwitchParser extends AbstractSwitchParser
 			{
 				if (looksLikeListItem(trimmed))
 				{
-					lineBuilder.append("\"<br>");
-					lineBuilder.append(trimmed.substring(1));
+					tokenizer.append("\"<br>");
+					tokenizer.append(trimmed, 1);
 				}
 				else
 				{
-					lineBuilder.append(trimmed);
+					tokenizer.append(trimmed);
 				}
 
 				if (trimmed.contains(expectedLineEnding))
 				{
-					String result = lineBuilder.toString().replace("\"\"", "<br>").replaceAll("\\s+", " ");
-
-					int lineEndingPos = result.indexOf(expectedLineEnding);
-
-					int commentPos = result.indexOf("//", lineEndingPos);
+					tokenizer.tokenize(expectedLineEnding);
 
-					String comment = null;
-
-					if (commentPos != -1)
-					{
-						comment = result.substring(commentPos);
-					}
-
-					result = result.substring(0, lineEndingPos);
-
-					lineBuilder.delete(0, lineBuilder.length());
 					inLine = false;
 
-					result = result.substring(result.indexOf('(') + 1);
-
-					List<String> parts = explodeLine(result);
+					String comment = tokenizer.getComment();
 
-					final int partCount = parts.size();
+					String type = tokenizer.getPart(0);
+					String name = tokenizer.getPart(1);
 
-					String type = partCount > 0 ? parts.get(0) : null;
-					String name = partCount > 1 ? parts.get(1) : null;
+					info = new SwitchInfo(PREFIX_XX, name);
+					info.setType(type);
+					info.setAvailability(availability);
+					info.setComment(comment);
+					info.setDefinedIn(metadata.getDefinedIn());
+					info.setMacro(macroName);
 
-					info = switchMap.get(name);
-
-					if (info == null)
-					{
-						info = new SwitchInfo(PREFIX_XX, name);
-						info.setType(type);
-						info.setAvailability(availability);
-						info.setComment(comment);
-						info.setDefinedIn(
-								hotspotFile.getCanonicalPath().substring(vmPath.getCanonicalFile().toString().length() + 1));
-						info.setMacro(macroName);
-					}
-
-					setFieldsFromPath(info, hotspotFile);
+					metadata.applyPathFields(info);
 
 					if (defaultValueField != -1)
 					{
-						String defaultValue = partCount > defaultValueField ? parts.get(defaultValueField) : null;
+						String defaultValue = tokenizer.getPart(defaultValueField);
 
 						if (defaultValue != null)
 						{
@@ -206,7 +258,7 @@ public class HotSpotSwitchParser extends AbstractSwitchParser
 
 					if (descriptionField != -1)
 					{
-						String description = partCount > descriptionField ? parts.get(descriptionField) : null;
+						String description = tokenizer.getPart(descriptionField);
 
 						if (description != null)
 						{
@@ -217,7 +269,7 @@ public class HotSpotSwitchParser extends AbstractSwitchParser
 							case "MANAGEABLE":
 								// extra_attrs
 								descriptionField++;
-								description = partCount > descriptionField ? parts.get(descriptionField) : null;
+								description = tokenizer.getPart(descriptionField);
 							}
 
 							if (description != null)
@@ -232,24 +284,78 @@ public class HotSpotSwitchParser extends AbstractSwitchParser
 						}
 					}
 
-					DeprecatedInfo deprecatedInfo = DeprecatedParser.getDeprecatedInfo(name);
-
-					if (deprecatedInfo != null)
-					{
-						info.setDeprecated(deprecatedInfo.getDeprecatedInJDK());
-						info.setObsoleted(deprecatedInfo.getObsoletedInJDK());
-						info.setExpired(deprecatedInfo.getExpiredInJDK());
-					}
-
-					switchMap.put(info.getKey(), info);
+					switchMap.put(info);
 
 					descriptionField = -1;
 					defaultValueField = -1;
 
-					// System.out.println(parts);
+					// System.out.println(tokenizer.getParts());
 				}
 			}
-		} // for
+		} // while
+	}
+
+	private String normaliseLine(String line)
+	{
+		if (line.indexOf('\\') == -1 && !line.contains("\" )") && !line.contains(JFR_ONLY))
+		{
+			return line.trim();
+		}
+
+		return line.replace("\\\"", "'").replace("\\", "").replace("\" )", "\")").replace(JFR_ONLY, "").trim();
+	}
+
+	// byte level check on the text before the first '(' so that comments, includes and
+	// other macro invocations are never decoded
+	private boolean mayStartDeclaration(MappedLineScanner scanner)
+	{
+		int start = scanner.skipWhitespace(scanner.getLineStart());
+
+		int bracketPos = scanner.indexOf((byte) '(', start);
+
+		if (bracketPos == -1)
+		{
+			return false;
+		}
+
+		for (int pos = start; pos < bracketPos; pos++)
+		{
+			byte b = scanner.byteAt(pos);
+
+			// normaliseLine may rewrite the token
+			if (b == '"' || b == '\\')
+			{
+				return true;
+			}
+		}
+
+		if (scanner.regionContains(start, bracketPos + 1, JFR_ONLY_BYTES) || scanner.regionContains(start, bracketPos,
+				PD_BYTES))
+		{
+			return true;
+		}
+
+		for (byte[] token : DECLARATION_TOKENS)
+		{
+			if (scanner.regionMatches(start, bracketPos, token))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static byte[][] toBytes(String... tokens)
+	{
+		byte[][] result = new byte[tokens.length][];
+
+		for (int i = 0; i < tokens.length; i++)
+		{
+			result[i] = tokens[i].getBytes(StandardCharsets.UTF_8);
+		}
+
+		return result;
 	}
 
 	private boolean isAllowedMacro(String token)
@@ -262,28 +368,22 @@ public class HotSpotSwitchParser extends AbstractSwitchParser
 		return line.length() > 1 && line.charAt(0) == '"' && Character.isDigit(line.charAt(1));
 	}
 
-	private List<File> findSwitchFilesHotSpot(File dir)
+	private List<File> findSwitchFilesHotSpot(File vmPath) throws IOException
 	{
-		List<File> result = new ArrayList<>();
+		try (PhaseTimer timer = Instrumentation.start(Phase.DISCOVERY))
+		{
+			SourceFileFinder finder = new File(vmPath, "src/share/vm").isDirectory() ? HOTSPOT_REPO_FINDER : SRC_HOTSPOT_FINDER;
 
-		File[] children = dir.listFiles();
+			discoveryResult = finder.find(vmPath.toPath());
 
-		for (File file : children)
-		{
-			if (file.isDirectory())
-			{
-				result.addAll(findSwitchFilesHotSpot(file));
-			}
-			else
-			{
-				String filename = file.getName();
+			timer.addFilesVisited(discoveryResult.getFilesVisited());
+		}
 
-				if (filename.contains("globals") && filename.endsWith(".hpp"))
-				{
-					//System.out.println("Found switch file " + file);
-					result.add(file);
-				}
-			}
+		List<File> result = new ArrayList<>(discoveryResult.getFiles().size());
+
+		for (Path path : discoveryResult.getFiles())
+		{
+			result.add(path.toFile());
 		}
 
 		return result;
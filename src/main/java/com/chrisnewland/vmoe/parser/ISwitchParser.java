@@ -6,6 +6,7 @@ package com.chrisnewland.vmoe.parser;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import com.chrisnewland.vmoe.SwitchInfo;
@@ -14,4 +15,18 @@ import com.chrisnewland.vmoe.SwitchInfoMap;
 public interface ISwitchParser
 {
     SwitchInfoMap process(File vmPath) throws IOException;
+
+    // process(vmPath) is parseSources(vmPath) followed by applyDeprecations, parseSources only
+    // depends on the files getSourceFiles(vmPath) returns so its result can be cached
+    default SwitchInfoMap parseSources(File vmPath) throws IOException
+    {
+        return process(vmPath);
+    }
+
+    default void applyDeprecations(SwitchInfoMap switches)
+    {
+    }
+
+    // the files process(vmPath) reads, used to detect unchanged sources
+    List<File> getSourceFiles(File vmPath) throws IOException;
 }
\ No newline at end of file
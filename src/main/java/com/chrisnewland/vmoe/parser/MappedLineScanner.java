@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.parser;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Walks the lines of a memory-mapped file without decoding them.
+// Line terminators are \n, \r and \r\n as for Files.readAllLines
+public class MappedLineScanner
+{
+	private final MappedByteBuffer buffer;
+	private final ByteBuffer reader;
+	private final int limit;
+
+	private int nextStart = 0;
+	private int lineStart = -1;
+	private int lineEnd = -1;
+
+	private byte[] decodeBuffer = new byte[256];
+
+	public MappedLineScanner(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			long size = channel.size();
+
+			if (size > Integer.MAX_VALUE)
+			{
+				throw new IOException("File too large to map: " + path);
+			}
+
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			limit = (int) size;
+			reader = buffer.duplicate();
+		}
+	}
+
+	public boolean nextLine()
+	{
+		if (nextStart >= limit)
+		{
+			return false;
+		}
+
+		int pos = nextStart;
+
+		while (pos < limit)
+		{
+			byte b = buffer.get(pos);
+
+			if (b == '\n' || b == '\r')
+			{
+				break;
+			}
+
+			pos++;
+		}
+
+		lineStart = nextStart;
+		lineEnd = pos;
+
+		if (pos < limit && buffer.get(pos) == '\r' && pos + 1 < limit && buffer.get(pos + 1) == '\n')
+		{
+			pos++;
+		}
+
+		nextStart = pos + 1;
+
+		return true;
+	}
+
+	public int getLineStart()
+	{
+		return lineStart;
+	}
+
+	public int getLineEnd()
+	{
+		return lineEnd;
+	}
+
+	public byte byteAt(int pos)
+	{
+		return buffer.get(pos);
+	}
+
+	// first position in the line that String.trim() would keep, or the line end if blank
+	public int skipWhitespace(int from)
+	{
+		int pos = from;
+
+		while (pos < lineEnd && (buffer.get(pos) & 0xff) <= ' ')
+		{
+			pos++;
+		}
+
+		return pos;
+	}
+
+	public int indexOf(byte value, int from)
+	{
+		for (int pos = from; pos < lineEnd; pos++)
+		{
+			if (buffer.get(pos) == value)
+			{
+				return pos;
+			}
+		}
+
+		return -1;
+	}
+
+	public boolean regionMatches(int from, int to, byte[] value)
+	{
+		if (to - from != value.length)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < value.length; i++)
+		{
+			if (buffer.get(from + i) != value[i])
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public boolean regionContains(int from, int to, byte[] value)
+	{
+		for (int pos = from; pos <= to - value.length; pos++)
+		{
+			if (regionMatches(pos, pos + value.length, value))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public String decodeLine()
+	{
+		int length = lineEnd - lineStart;
+
+		if (length > decodeBuffer.length)
+		{
+			decodeBuffer = new byte[Math.max(length, decodeBuffer.length * 2)];
+		}
+
+		((Buffer) reader).position(lineStart);
+		reader.get(decodeBuffer, 0, length);
+
+		return new String(decodeBuffer, 0, length, StandardCharsets.UTF_8);
+	}
+}
@@ -7,32 +7,44 @@ package com.chrisnewland.vmoe.parser;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import static com.chrisnewland.vmoe.SwitchInfo.PREFIX_X;
 import static com.chrisnewland.vmoe.SwitchInfo.PREFIX_XX;
 
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
 
 public class OpenJ9SwitchParser extends AbstractSwitchParser
 {
+	private static final String JVMINIT_HEADER = "runtime/oti/jvminit.h";
+
+	private static final String NLS_FILE = "runtime/nls/exel/exelib.nls";
+
 	@Override public SwitchInfoMap process(File vmPath) throws IOException
 	{
-		switchMap = new SwitchInfoMap();
+		switchMap = SwitchInfoMap.builder();
 
-		parseJVMInitHeader(new File(vmPath, "runtime/oti/jvminit.h"));
+		parseJVMInitHeader(new File(vmPath, JVMINIT_HEADER));
 
-		parseNLSFile(new File(vmPath, "runtime/nls/exel/exelib.nls"));
+		parseNLSFile(new File(vmPath, NLS_FILE));
 
-		return switchMap;
+		return switchMap.freeze();
+	}
+
+	@Override public List<File> getSourceFiles(File vmPath)
+	{
+		return Arrays.asList(new File(vmPath, JVMINIT_HEADER), new File(vmPath, NLS_FILE));
 	}
 
 	private void parseJVMInitHeader(File file) throws IOException
 	{
 		List<String> lines = Files.readAllLines(file.toPath());
 
+		Instrumentation.recordFileRead(file.toPath());
+
 		for (String line : lines)
 		{
 			String trimmed = line.trim();
@@ -72,7 +84,7 @@ public class OpenJ9SwitchParser extends AbstractSwitchParser
 
 				//System.out.println("init " + trimmed + "\n" + info);
 
-				switchMap.put(info.getKey(), info);
+				switchMap.put(info);
 			}
 		}
 	}
@@ -81,6 +93,8 @@ public class OpenJ9SwitchParser extends AbstractSwitchParser
 	{
 		List<String> lines = Files.readAllLines(file.toPath());
 
+		Instrumentation.recordFileRead(file.toPath());
+
 		for (String line : lines)
 		{
 			String trimmed = line.trim();
@@ -142,7 +156,7 @@ public class OpenJ9SwitchParser extends AbstractSwitchParser
 				SwitchInfo info = new SwitchInfo(prefix, name);
 				info.setDescription(descriptionBuilder.toString().trim());
 
-				switchMap.put(info.getKey(), info);
+				switchMap.put(info);
 
 				//System.out.println("nls " + trimmed + "\n" + info);
 
@@ -153,7 +167,7 @@ public class OpenJ9SwitchParser extends AbstractSwitchParser
 		}
 	}
 
-	private void cleanDupsEnding(String name, String ending, Map<String, SwitchInfo> switchMap)
+	private void cleanDupsEnding(String name, String ending, SwitchInfoMap.Builder switchMap)
 	{
 		if (name.endsWith(ending))
 		{
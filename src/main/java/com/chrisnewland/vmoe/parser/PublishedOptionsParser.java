@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.parser;
+
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.store.PublishedJSONLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+// "parses" a json/options file written by an earlier run instead of the VM sources
+public class PublishedOptionsParser implements ISwitchParser
+{
+	@Override public SwitchInfoMap process(File optionsFile) throws IOException
+	{
+		return PublishedJSONLoader.loadOptions(optionsFile.toPath());
+	}
+
+	@Override public List<File> getSourceFiles(File optionsFile)
+	{
+		return Collections.singletonList(optionsFile);
+	}
+}
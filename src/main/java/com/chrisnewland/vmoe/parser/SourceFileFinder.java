@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SourceFileFinder
+{
+	public interface FileNameMatcher
+	{
+		boolean matches(String filename);
+	}
+
+	private Set<String> prunedDirectoryNames;
+
+	private FileNameMatcher matcher;
+
+	private boolean parallel;
+
+	public SourceFileFinder(Collection<String> prunedDirectoryNames, FileNameMatcher matcher, boolean parallel)
+	{
+		this.prunedDirectoryNames = new HashSet<>(prunedDirectoryNames);
+		this.matcher = matcher;
+		this.parallel = parallel;
+	}
+
+	public FileDiscoveryResult find(Path root) throws IOException
+	{
+		long start = System.nanoTime();
+
+		WalkState state = new WalkState();
+
+		if (parallel)
+		{
+			try
+			{
+				new DirectoryTask(root, Files.readAttributes(root, BasicFileAttributes.class).fileKey(), null, state).invoke();
+			}
+			catch (UncheckedIOException uioe)
+			{
+				throw uioe.getCause();
+			}
+		}
+		else
+		{
+			walkSequential(root, state);
+		}
+
+		List<Path> files = new ArrayList<>(state.found);
+
+		// directory listing order is filesystem dependent
+		Collections.sort(files);
+
+		return new FileDiscoveryResult(files, state.directoriesVisited.get(), state.directoriesPruned.get(),
+				state.filesVisited.get(), System.nanoTime() - start);
+	}
+
+	private void walkSequential(final Path root, final WalkState state) throws IOException
+	{
+		Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+		{
+			@Override public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+			{
+				if (!dir.equals(root) && isPruned(dir))
+				{
+					state.directoriesPruned.incrementAndGet();
+
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+
+				state.directoriesVisited.incrementAndGet();
+
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+			{
+				state.visitFile(file);
+
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException
+			{
+				if (exc instanceof FileSystemLoopException)
+				{
+					return FileVisitResult.CONTINUE;
+				}
+
+				throw exc;
+			}
+		});
+	}
+
+	private boolean isPruned(Path dir)
+	{
+		Path name = dir.getFileName();
+
+		return name != null && prunedDirectoryNames.contains(name.toString());
+	}
+
+	private class WalkState
+	{
+		private Queue<Path> found = new ConcurrentLinkedQueue<>();
+
+		private AtomicLong directoriesVisited = new AtomicLong();
+
+		private AtomicLong directoriesPruned = new AtomicLong();
+
+		private AtomicLong filesVisited = new AtomicLong();
+
+		private void visitFile(Path file)
+		{
+			filesVisited.incrementAndGet();
+
+			if (matcher.matches(file.getFileName().toString()))
+			{
+				found.add(file);
+			}
+		}
+	}
+
+	// Follows links like the sequential walk and, like Files.walkFileTree, skips a directory that is
+	// the same file as one of its ancestors so a symlink loop can't recurse forever.
+	private class DirectoryTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private Path dir;
+
+		private Object fileKey;
+
+		private DirectoryTask parent;
+
+		private WalkState state;
+
+		private DirectoryTask(Path dir, Object fileKey, DirectoryTask parent, WalkState state)
+		{
+			this.dir = dir;
+			this.fileKey = fileKey;
+			this.parent = parent;
+			this.state = state;
+		}
+
+		@Override protected void compute()
+		{
+			List<DirectoryTask> subTasks = new ArrayList<>();
+
+			state.directoriesVisited.incrementAndGet();
+
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir))
+			{
+				for (Path child : stream)
+				{
+					if (Files.isDirectory(child))
+					{
+						Object childKey = Files.readAttributes(child, BasicFileAttributes.class).fileKey();
+
+						if (isLoop(child, childKey))
+						{
+							continue;
+						}
+
+						if (isPruned(child))
+						{
+							state.directoriesPruned.incrementAndGet();
+						}
+						else
+						{
+							subTasks.add(new DirectoryTask(child, childKey, this, state));
+						}
+					}
+					else
+					{
+						state.visitFile(child);
+					}
+				}
+			}
+			catch (IOException ioe)
+			{
+				throw new UncheckedIOException(ioe);
+			}
+
+			invokeAll(subTasks);
+		}
+
+		private boolean isLoop(Path child, Object childKey) throws IOException
+		{
+			for (DirectoryTask ancestor = this; ancestor != null; ancestor = ancestor.parent)
+			{
+				if (childKey != null && ancestor.fileKey != null)
+				{
+					if (childKey.equals(ancestor.fileKey))
+					{
+						return true;
+					}
+				}
+				else if (Files.isSameFile(child, ancestor.dir))
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
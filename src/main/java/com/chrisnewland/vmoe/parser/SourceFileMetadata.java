@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.chrisnewland.vmoe.SwitchInfo;
+
+// Everything a switch takes from the source file declaring it, worked out once per file
+public class SourceFileMetadata
+{
+	private final String definedIn;
+	private String os;
+	private String cpu;
+	private String component;
+
+	// canonicalVmPath must already be canonical so it is only resolved once per VM
+	public SourceFileMetadata(File file, File canonicalVmPath) throws IOException
+	{
+		this.definedIn = file.getCanonicalPath().substring(canonicalVmPath.toString().length() + 1);
+
+		classifyPath(file.toPath());
+	}
+
+	public String getDefinedIn()
+	{
+		return definedIn;
+	}
+
+	public String getOs()
+	{
+		return os;
+	}
+
+	public String getCpu()
+	{
+		return cpu;
+	}
+
+	public String getComponent()
+	{
+		return component;
+	}
+
+	public void applyPathFields(SwitchInfo info)
+	{
+		if (os != null)
+		{
+			info.setOs(os);
+		}
+
+		if (cpu != null)
+		{
+			info.setCpu(cpu);
+		}
+
+		if (component != null)
+		{
+			info.setComponent(component);
+		}
+	}
+
+	private void classifyPath(Path path)
+	{
+		final int pathParts = path.getNameCount();
+
+		for (int i = 0; i < pathParts - 1; i++)
+		{
+			String part = path.getName(i).toString();
+			String nextPart = path.getName(i + 1).toString();
+
+			switch (part)
+			{
+			case "os":
+				os = nextPart;
+				break;
+			case "cpu":
+				cpu = nextPart;
+				break;
+			case "vm":
+			case "share":
+				if (nextPart.startsWith("c1"))
+				{
+					component = "c1";
+				}
+				else if (nextPart.startsWith("c2") || nextPart.startsWith("opto"))
+				{
+					component = "c2";
+				}
+				else if (nextPart.startsWith("shark"))
+				{
+					component = "shark";
+				}
+				else if ("gc_implementation".equals(nextPart))
+				{
+					component = "gc";
+				}
+				else if (!nextPart.contains(".hpp"))
+				{
+					component = nextPart;
+				}
+				break;
+			case "os_cpu":
+				String[] nextParts = nextPart.split("_");
+				os = nextParts[0];
+				cpu = nextParts[1];
+				break;
+			}
+		}
+	}
+}
@@ -6,6 +6,7 @@ package com.chrisnewland.vmoe.parser;
 
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
 
 import java.io.File;
 import java.io.IOException;
@@ -20,12 +21,14 @@ public class XUsageParser extends AbstractSwitchParser
 {
 	@Override public SwitchInfoMap process(File xUsageFile) throws IOException
 	{
-		switchMap = new SwitchInfoMap();
+		switchMap = SwitchInfoMap.builder();
 
 		Path usagePath = xUsageFile.toPath();
 
 		List<String> lines = Files.readAllLines(usagePath);
 
+		Instrumentation.recordFileRead(usagePath);
+
 		if (usagePath.toString().endsWith(".properties"))
 		{
 			lines = preProcess(lines);
@@ -116,7 +119,7 @@ public class XUsageParser extends AbstractSwitchParser
 
 				info.setDefinedIn(xUsageFile.getName());
 
-				switchMap.put(info.getKey(), info);
+				switchMap.put(info);
 			}
 			else
 			{
@@ -137,7 +140,7 @@ public class XUsageParser extends AbstractSwitchParser
 			descriptionBuilder.setLength(0);
 		}
 
-		return switchMap;
+		return switchMap.freeze();
 	}
 
 	private boolean isNewSwitch(String line)
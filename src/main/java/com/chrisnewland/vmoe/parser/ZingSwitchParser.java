@@ -13,6 +13,7 @@ import static com.chrisnewland.vmoe.SwitchInfo.PREFIX_XX;
 
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
 
 public class ZingSwitchParser extends AbstractSwitchParser
 {
@@ -24,10 +25,12 @@ public class ZingSwitchParser extends AbstractSwitchParser
 
 	@Override public SwitchInfoMap process(File vmPath) throws IOException
 	{
-		switchMap = new SwitchInfoMap();
+		switchMap = SwitchInfoMap.builder();
 
 		List<String> lines = Files.readAllLines(vmPath.toPath());
 
+		Instrumentation.recordFileRead(vmPath.toPath());
+
 		for (String line : lines)
 		{
 			String trimmed = line.trim();
@@ -104,11 +107,11 @@ public class ZingSwitchParser extends AbstractSwitchParser
 
 				// System.out.println(info.toString());
 
-				switchMap.put(info.getKey(), info);
+				switchMap.put(info);
 			}
 		}
 
-		return switchMap;
+		return switchMap.freeze();
 	}
 
 	private boolean isValidSwitch(String line)
@@ -4,9 +4,11 @@
  */
 package com.chrisnewland.vmoe.parser.delta;
 
+import com.chrisnewland.vmoe.JSONStreamWriter;
 import com.chrisnewland.vmoe.SwitchInfo;
 import com.chrisnewland.vmoe.VMData;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -45,63 +47,68 @@ public abstract class AbstractDeltaTable implements IDeltaTable
 		return removed.size();
 	}
 
-	@Override public String toJSON()
+	@Override public void writeJSON(JSONStreamWriter writer) throws IOException
 	{
-		StringBuilder builder = new StringBuilder();
+		writer.writeRaw("{\"earlierVM\": ").writeQuoted(earlierVM.getSafeJDKName()).writeRaw(",\n");
+		writer.writeRaw("\"laterVM\": ").writeQuoted(laterVM.getSafeJDKName()).writeRaw(",\n");
 
-		builder.append('{');
+		writeList(writer, "added", added);
+		writer.writeRaw(",\n");
 
-		builder.append(putJSONKeyValue("earlierVM", earlierVM.getSafeJDKName()));
-		builder.append(putJSONKeyValue("laterVM", laterVM.getSafeJDKName()));
-		builder.append(putJSONKeyValueList("added", added));
-		builder.append(putJSONKeyValueList("removed", removed));
-
-		builder.deleteCharAt(builder.length() - 2).append('}');
-
-		return builder.toString();
+		writeList(writer, "removed", removed);
+		writer.writeRaw("\n}");
 	}
 
-	private String putJSONKeyValue(String key, String value)
+	// a header line naming both VMs then one {"change":"added|removed","switch":{...}} line per switch
+	@Override public void writeNDJSON(JSONStreamWriter writer) throws IOException
 	{
-		StringBuilder builder = new StringBuilder();
+		writer.beginObject().writeField("content", "diffs");
+		writer.writeField("earlierVM", earlierVM.getSafeJDKName()).writeField("laterVM", laterVM.getSafeJDKName());
+		writer.writeRaw(",\"added\":").writeRaw(Integer.toString(added.size()));
+		writer.writeRaw(",\"removed\":").writeRaw(Integer.toString(removed.size()));
+		writer.endObject().writeRaw("\n");
 
-		builder.append('"').append(key).append("\": \"").append(value).append("\",\n");
+		writeLines(writer, "added", added);
 
-		return builder.toString();
+		writeLines(writer, "removed", removed);
 	}
 
-	private String putJSONKeyValueList(String key, List<SwitchInfo> list)
+	private void writeLines(JSONStreamWriter writer, String change, List<SwitchInfo> list) throws IOException
 	{
-		StringBuilder builder = new StringBuilder();
+		for (SwitchInfo switchInfo : list)
+		{
+			writer.writeRaw("{\"change\":").writeQuoted(change).writeRaw(",\"switch\":");
 
-		builder.append('"').append(key).append("\":").append(listToOrderedJSONString(list)).append(",\n");
+			switchInfo.writeJSON(writer);
 
-		return builder.toString();
+			writer.writeRaw("}\n");
+		}
 	}
 
-	private String listToOrderedJSONString(List<SwitchInfo> list)
+	private void writeList(JSONStreamWriter writer, String key, List<SwitchInfo> list) throws IOException
 	{
-		StringBuilder builder = new StringBuilder();
+		writer.writeRaw("\"").writeRaw(key).writeRaw("\":[");
 
-		builder.append('[');
+		boolean first = true;
 
 		for (SwitchInfo switchInfo : list)
 		{
-			//builder.append('{');
+			if (!first)
+			{
+				writer.writeRaw(",\n");
+			}
 
-			builder.append(switchInfo.serialise());
+			switchInfo.writeJSON(writer);
 
-			builder.append(",\n");
+			first = false;
 		}
 
 		if (!list.isEmpty())
 		{
-			builder.deleteCharAt(builder.length() - 2);
+			writer.writeRaw("\n");
 		}
 
-		builder.append(']');
-
-		return builder.toString();
+		writer.writeRaw("]");
 	}
 
 	@Override public boolean equals(Object o)
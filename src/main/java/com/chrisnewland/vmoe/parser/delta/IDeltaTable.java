@@ -4,8 +4,11 @@
  */
 package com.chrisnewland.vmoe.parser.delta;
 
+import com.chrisnewland.vmoe.JSONStreamWriter;
 import com.chrisnewland.vmoe.SwitchInfo;
 
+import java.io.IOException;
+
 public interface IDeltaTable
 {
 	void recordAddition(SwitchInfo switchInfo);
@@ -16,5 +19,7 @@ public interface IDeltaTable
 
 	int getRemovalCount();
 
-	String toJSON();
+	void writeJSON(JSONStreamWriter writer) throws IOException;
+
+	void writeNDJSON(JSONStreamWriter writer) throws IOException;
 }
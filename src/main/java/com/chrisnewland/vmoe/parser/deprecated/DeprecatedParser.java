@@ -4,6 +4,10 @@
  */
 package com.chrisnewland.vmoe.parser.deprecated;
 
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.instrument.Phase;
+import com.chrisnewland.vmoe.instrument.PhaseTimer;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -29,24 +33,33 @@ public class DeprecatedParser
 	{
 		System.out.println("Parsing deprecation info for " + openJDKRoot);
 
-		List<String> lines = Files.readAllLines(Paths.get(openJDKRoot.toString(), ARGUMENTS_FILENAME));
-
-		for (String line : lines)
+		try (PhaseTimer timer = Instrumentation.start(Phase.DEPRECATION))
 		{
-			if (line.contains(STOP_MARKER))
-			{
-				break;
-			}
+			Path argumentsPath = Paths.get(openJDKRoot.toString(), ARGUMENTS_FILENAME);
 
-			if (isDeprecationLine(line))
+			List<String> lines = Files.readAllLines(argumentsPath);
+
+			Instrumentation.recordFileRead(argumentsPath);
+
+			for (String line : lines)
 			{
-				//System.out.println(line);
+				if (line.contains(STOP_MARKER))
+				{
+					break;
+				}
+
+				if (isDeprecationLine(line))
+				{
+					//System.out.println(line);
+
+					DeprecatedInfo info = DeprecatedInfo.parse(line);
 
-				DeprecatedInfo info = DeprecatedInfo.parse(line);
+					//System.out.println(info.toString());
 
-				//System.out.println(info.toString());
+					deprecatedMap.put(info.getOptionName(), info);
 
-				deprecatedMap.put(info.getOptionName(), info);
+					timer.addSwitches(1);
+				}
 			}
 		}
 	}
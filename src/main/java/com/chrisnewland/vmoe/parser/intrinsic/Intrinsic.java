@@ -4,13 +4,21 @@
  */
 package com.chrisnewland.vmoe.parser.intrinsic;
 
-import com.chrisnewland.vmoe.OrderedJSONObjectFactory;
-import org.json.JSONObject;
+import com.chrisnewland.vmoe.JSONStreamWriter;
+import com.chrisnewland.vmoe.OrderedJSONSerialiser;
 
+import java.io.IOException;
 import java.util.Objects;
 
 public class Intrinsic
 {
+	private static final OrderedJSONSerialiser<Intrinsic> SERIALISER = new OrderedJSONSerialiser<Intrinsic>()
+			.field("id", i -> i.id)
+			.field("class", i -> i.klass)
+			.field("name", i -> i.name)
+			.field("signature", i -> i.signature)
+			.field("flags", i -> i.flags);
+
 	private String id;
 	private String klass;
 	private String name;
@@ -71,15 +79,12 @@ public class Intrinsic
 
 	public String serialise()
 	{
-		JSONObject jsonObject = OrderedJSONObjectFactory.getJSONObject();
-
-		jsonObject.put("id", id);
-		jsonObject.put("class", klass);
-		jsonObject.put("name", name);
-		jsonObject.put("signature", signature);
-		jsonObject.put("flags", flags);
+		return SERIALISER.serialise(this);
+	}
 
-		return jsonObject.toString();
+	public void writeJSON(JSONStreamWriter writer) throws IOException
+	{
+		SERIALISER.write(this, writer);
 	}
 
 	public static String getHeaderRow()
@@ -11,13 +11,16 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.chrisnewland.vmoe.Serialiser;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.instrument.Phase;
+import com.chrisnewland.vmoe.instrument.PhaseTimer;
 import com.chrisnewland.vmoe.parser.ParseUtil;
+import com.chrisnewland.vmoe.store.PublishedJSONLoader;
 
 public class IntrinsicParser
 {
@@ -183,24 +186,65 @@ public class IntrinsicParser
 		mapAlias = new HashMap<String, String>();
 	}
 
-	public void processIntrinsics(String jdkName, Path... filesToProcess) throws Exception
+	// reads the intrinsics declared across the given files without writing any output
+	public List<Intrinsic> parseIntrinsics(Path... filesToProcess) throws Exception
 	{
 		reset();
 
 		for (Path filePath : filesToProcess)
 		{
-			processFile(filePath, jdkName);
+			processFile(filePath);
 		}
+
+		return getIntrinsics();
 	}
 
+	public void processIntrinsics(String jdkName, Path... filesToProcess) throws Exception
+	{
+		try (PhaseTimer timer = Instrumentation.start(Phase.INTRINSICS, jdkName))
+		{
+			timer.addSwitches(parseIntrinsics(filesToProcess).size());
+
+			// output once all files for this JDK have been read, not once per file
+			outputIntrinsics(jdkName, getIntrinsics());
+		}
+	}
+
+	// renders the page from the intrinsics JSON of an earlier run, call in JDK release order for "since"
+	public void renderIntrinsics(String jdkName) throws Exception
+	{
+		try (PhaseTimer timer = Instrumentation.start(Phase.INTRINSICS, jdkName))
+		{
+			List<Intrinsic> intrinsics = PublishedJSONLoader.loadIntrinsics(
+					serialisationPath.resolve(Paths.get(jdkName + "_intrinsics.json")));
+
+			timer.addSwitches(intrinsics.size());
+
+			// serialised again so the manifest still lists the intrinsics JSON, unchanged files are not rewritten
+			outputIntrinsics(jdkName, intrinsics);
+		}
+	}
+
+	private void outputIntrinsics(String jdkName, List<Intrinsic> intrinsics) throws Exception
+	{
+		createHTMLForVM(jdkName, intrinsics);
+
+		if (serialisationPath != null)
+		{
+			serialiser.serialiseIntrinsics(serialisationPath.resolve(Paths.get(jdkName + "_intrinsics.json")), jdkName,
+					intrinsics);
+		}
+	}
 
 	// don't split by line
 	// read chars
 
-	private void processFile(Path fileToProcess, String jdkName) throws Exception
+	private void processFile(Path fileToProcess) throws Exception
 	{
 		List<String> lines = splitMultipleTagsPerLine(Files.readAllLines(fileToProcess));
 
+		Instrumentation.recordFileRead(fileToProcess);
+
 		for (int i = 0; i <lines.size(); i++)
 		{
 			String line = lines.get(i);
@@ -240,13 +284,6 @@ public class IntrinsicParser
 				}
 			}
 		}
-
-		createHTMLForVM(jdkName);
-
-		if (serialisationPath != null)
-		{
-			serialiser.serialiseIntrinsics(serialisationPath.resolve(Paths.get(jdkName + "_intrinsics.json")), getIntrinsics());
-		}
 	}
 
 	private String[] getParts(String value)
@@ -408,15 +445,13 @@ public class IntrinsicParser
 		return new Intrinsic(id, actualKlass, actualName, actualSignature, flags);
 	}
 
-	private void createHTMLForVM(String jdkName) throws IOException
+	private void createHTMLForVM(String jdkName, List<Intrinsic> intrinsics) throws IOException
 	{
 		String template = new String(Files.readAllBytes(Paths.get("templates/template_intrinsic.html")), StandardCharsets.UTF_8);
 		String headerHTML = new String(Files.readAllBytes(Paths.get("templates/header.html")), StandardCharsets.UTF_8);
 
 		StringBuilder htmlBuilder = new StringBuilder();
 
-		List<Intrinsic> intrinsics = getIntrinsics();
-
 		for (Intrinsic intrinsic : intrinsics)
 		{
 			String firstSeenInJDK = seenInJDK.get(intrinsic.getId());
@@ -440,15 +475,13 @@ public class IntrinsicParser
 		template = template.replace("$THEAD", Intrinsic.getHeaderRow());
 		template = template.replace("$VMNAME", "HotSpot");
 		template = template.replace("$JDK", jdkName);
-		template = template.replace("$DATE", new Date().toString());
 		template = template.replace("$TBODY", htmlBuilder.toString());
 
 		template = template.replace("$TOPHEADER", "<th></th><th></th><th>Class</th><th></th><th></th><th></th>");
 		template = template.replace("$ALLCOLUMNS", "[ 0, 1, 2, 3, 4, 5 ]");
 		template = template.replace("$SORTCOLUMNS", "[ 2 ]");
 
-		Files.write(Paths.get("html/hotspot_intrinsics_" + jdkName.toLowerCase() + ".html"),
-				template.getBytes(StandardCharsets.UTF_8));
+		serialiser.writeHTML(Paths.get("html/hotspot_intrinsics_" + jdkName.toLowerCase() + ".html"), template);
 
 		System.out.println(jdkName + " has " + intrinsics.size() + " intrinsics");
 	}
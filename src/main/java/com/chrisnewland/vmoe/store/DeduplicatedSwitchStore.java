@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.store;
+
+import com.chrisnewland.vmoe.JSONStreamWriter;
+import com.chrisnewland.vmoe.SwitchInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Every switch of every VM with identical definitions stored once. Most switches are the same
+// across OpenJDK releases and the HotSpot based vendor builds so this holds a fraction of the
+// SwitchInfo objects that the per-VM maps do.
+public class DeduplicatedSwitchStore
+{
+	private final List<String> vmNames = new ArrayList<>();
+
+	private final Map<SwitchDefinition, SwitchDefinition> definitions = new HashMap<>();
+
+	private int switchCount;
+
+	// values are copied so later changes to the SwitchInfo objects are not seen
+	public synchronized int addVM(String vmName, Collection<SwitchInfo> switches)
+	{
+		int vm = vmNames.size();
+
+		vmNames.add(vmName);
+
+		for (SwitchInfo switchInfo : switches)
+		{
+			SwitchDefinition probe = new SwitchDefinition(switchInfo);
+
+			SwitchDefinition definition = definitions.get(probe);
+
+			if (definition == null)
+			{
+				definition = new SwitchDefinition(new SwitchInfo(switchInfo));
+
+				definitions.put(definition, definition);
+			}
+
+			definition.addVM(vm);
+		}
+
+		switchCount += switches.size();
+
+		return vm;
+	}
+
+	public synchronized List<String> getVMNames()
+	{
+		return new ArrayList<>(vmNames);
+	}
+
+	public synchronized int getDefinitionCount()
+	{
+		return definitions.size();
+	}
+
+	// total of the per-VM switch counts, what the store would hold without deduplication
+	public synchronized int getSwitchCount()
+	{
+		return switchCount;
+	}
+
+	// sorted by switch name, then by the first VM defining it
+	public synchronized List<SwitchDefinition> getDefinitions()
+	{
+		List<SwitchDefinition> result = new ArrayList<>(definitions.keySet());
+
+		Collections.sort(result, Comparator.comparing((SwitchDefinition definition) -> definition.getSwitchInfo().getName())
+										   .thenComparing(SwitchDefinition::getVMRanges));
+
+		return result;
+	}
+
+	// { "vms" : [ names ],
+	// "switches" : [ {"switch":{...},"vms":"0-12,15"},
+	// ... ] }
+	public void writeJSON(JSONStreamWriter writer) throws IOException
+	{
+		List<String> names = getVMNames();
+
+		writer.writeRaw("{ \"vms\" : [ ");
+
+		for (int i = 0; i < names.size(); i++)
+		{
+			if (i > 0)
+			{
+				writer.writeRaw(", ");
+			}
+
+			writer.writeQuoted(names.get(i));
+		}
+
+		writer.writeRaw(" ],\n\"switches\" : [ ");
+
+		boolean first = true;
+
+		for (SwitchDefinition definition : getDefinitions())
+		{
+			if (!first)
+			{
+				writer.writeRaw(",\n");
+			}
+
+			writer.writeRaw("{\"switch\":");
+
+			definition.getSwitchInfo().writeJSON(writer);
+
+			writer.writeRaw(",\"vms\":").writeQuoted(definition.getVMRanges()).writeRaw("}");
+
+			first = false;
+		}
+
+		writer.writeRaw(first ? "] }" : "\n] }");
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.store;
+
+import com.chrisnewland.vmoe.JSONStreamReader;
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.catalogue.CatalogueField;
+import com.chrisnewland.vmoe.instrument.Instrumentation;
+import com.chrisnewland.vmoe.parser.delta.IDeltaTable;
+import com.chrisnewland.vmoe.parser.intrinsic.Intrinsic;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads the published json/options, json/diffs and json/intrinsics files back into the objects they were
+// written from, one element at a time, so pages can be rendered without the JDK source trees.
+public class PublishedJSONLoader
+{
+	private static final Map<String, CatalogueField> FIELDS_BY_KEY = new HashMap<>();
+
+	static
+	{
+		for (CatalogueField field : CatalogueField.values())
+		{
+			FIELDS_BY_KEY.put(field.getKey(), field);
+		}
+	}
+
+	private PublishedJSONLoader()
+	{
+	}
+
+	public static SwitchInfoMap loadOptions(Path optionsFile) throws IOException
+	{
+		SwitchInfoMap.Builder result = SwitchInfoMap.builder();
+
+		try (JSONStreamReader reader = open(optionsFile))
+		{
+			reader.expect('{');
+
+			while (reader.hasNext())
+			{
+				if ("switches".equals(reader.nextString()))
+				{
+					reader.expect('[');
+
+					while (reader.hasNext())
+					{
+						result.put(readSwitchInfo(reader));
+					}
+
+					reader.expect(']');
+				}
+				else
+				{
+					reader.skipValue();
+				}
+			}
+
+			reader.expect('}');
+		}
+
+		return result.freeze();
+	}
+
+	public static List<Intrinsic> loadIntrinsics(Path intrinsicsFile) throws IOException
+	{
+		List<Intrinsic> result = new ArrayList<>();
+
+		try (JSONStreamReader reader = open(intrinsicsFile))
+		{
+			reader.expect('{');
+
+			while (reader.hasNext())
+			{
+				if ("intrinsics".equals(reader.nextString()))
+				{
+					reader.expect('[');
+
+					while (reader.hasNext())
+					{
+						result.add(readIntrinsic(reader));
+					}
+
+					reader.expect(']');
+				}
+				else
+				{
+					reader.skipValue();
+				}
+			}
+
+			reader.expect('}');
+		}
+
+		return result;
+	}
+
+	// records the added and removed switches of a diffs file into the given table
+	public static void loadDiffs(Path diffsFile, IDeltaTable deltaTable) throws IOException
+	{
+		try (JSONStreamReader reader = open(diffsFile))
+		{
+			reader.expect('{');
+
+			while (reader.hasNext())
+			{
+				String name = reader.nextString();
+
+				if ("added".equals(name) || "removed".equals(name))
+				{
+					boolean added = "added".equals(name);
+
+					reader.expect('[');
+
+					while (reader.hasNext())
+					{
+						SwitchInfo switchInfo = readSwitchInfo(reader);
+
+						if (added)
+						{
+							deltaTable.recordAddition(switchInfo);
+						}
+						else
+						{
+							deltaTable.recordRemoval(switchInfo);
+						}
+					}
+
+					reader.expect(']');
+				}
+				else
+				{
+					reader.skipValue();
+				}
+			}
+
+			reader.expect('}');
+		}
+	}
+
+	private static JSONStreamReader open(Path path) throws IOException
+	{
+		JSONStreamReader reader = new JSONStreamReader(new BufferedInputStream(Files.newInputStream(path)));
+
+		Instrumentation.recordFileRead(path);
+
+		return reader;
+	}
+
+	private static SwitchInfo readSwitchInfo(JSONStreamReader reader) throws IOException
+	{
+		String[] values = new String[CatalogueField.values().length];
+
+		reader.expect('{');
+
+		while (reader.hasNext())
+		{
+			CatalogueField field = FIELDS_BY_KEY.get(reader.nextString());
+
+			if (field != null)
+			{
+				values[field.ordinal()] = reader.nextString();
+			}
+			else
+			{
+				reader.skipValue();
+			}
+		}
+
+		reader.expect('}');
+
+		SwitchInfo switchInfo = new SwitchInfo(values[CatalogueField.PREFIX.ordinal()], values[CatalogueField.NAME.ordinal()]);
+
+		switchInfo.setType(values[CatalogueField.TYPE.ordinal()]);
+		switchInfo.setOs(values[CatalogueField.OS.ordinal()]);
+		switchInfo.setCpu(values[CatalogueField.CPU.ordinal()]);
+		switchInfo.setComponent(values[CatalogueField.COMPONENT.ordinal()]);
+		switchInfo.setDefaultValue(values[CatalogueField.DEFAULT_VALUE.ordinal()]);
+		switchInfo.setAvailability(values[CatalogueField.AVAILABILITY.ordinal()]);
+		switchInfo.setDescription(values[CatalogueField.DESCRIPTION.ordinal()]);
+		switchInfo.setComment(values[CatalogueField.COMMENT.ordinal()]);
+		switchInfo.setDefinedIn(values[CatalogueField.DEFINED_IN.ordinal()]);
+		switchInfo.setSince(values[CatalogueField.SINCE.ordinal()]);
+		switchInfo.setRange(values[CatalogueField.RANGE.ordinal()]);
+		switchInfo.setDeprecated(values[CatalogueField.DEPRECATED.ordinal()]);
+		switchInfo.setObsoleted(values[CatalogueField.OBSOLETED.ordinal()]);
+		switchInfo.setExpired(values[CatalogueField.EXPIRED.ordinal()]);
+		switchInfo.setMacro(values[CatalogueField.MACRO.ordinal()]);
+
+		return switchInfo;
+	}
+
+	private static Intrinsic readIntrinsic(JSONStreamReader reader) throws IOException
+	{
+		String id = null;
+		String klass = null;
+		String name = null;
+		String signature = null;
+		String flags = null;
+
+		reader.expect('{');
+
+		while (reader.hasNext())
+		{
+			String key = reader.nextString();
+			String value = reader.nextString();
+
+			switch (key)
+			{
+			case "id":
+				id = value;
+				break;
+			case "class":
+				klass = value;
+				break;
+			case "name":
+				name = value;
+				break;
+			case "signature":
+				signature = value;
+				break;
+			case "flags":
+				flags = value;
+				break;
+			}
+		}
+
+		reader.expect('}');
+
+		return new Intrinsic(id, klass, name, signature, flags);
+	}
+}
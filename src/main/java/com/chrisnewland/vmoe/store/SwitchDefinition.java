@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.store;
+
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.catalogue.CatalogueField;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+// One distinct switch definition and the VMs that define it identically.
+// Unlike SwitchInfo, equality covers every field and not just the name.
+public class SwitchDefinition
+{
+	private static final CatalogueField[] FIELDS = CatalogueField.values();
+
+	private final SwitchInfo switchInfo;
+
+	private final BitSet vms = new BitSet();
+
+	private final int hashCode;
+
+	SwitchDefinition(SwitchInfo switchInfo)
+	{
+		this.switchInfo = switchInfo;
+
+		int hash = 1;
+
+		for (CatalogueField field : FIELDS)
+		{
+			hash = 31 * hash + Objects.hashCode(field.getValue(switchInfo));
+		}
+
+		this.hashCode = hash;
+	}
+
+	public SwitchInfo getSwitchInfo()
+	{
+		return switchInfo;
+	}
+
+	public boolean isInVM(int vm)
+	{
+		return vms.get(vm);
+	}
+
+	public BitSet getVMs()
+	{
+		return (BitSet) vms.clone();
+	}
+
+	void addVM(int vm)
+	{
+		vms.set(vm);
+	}
+
+	// the VM indexes as ranges, for example "0-12,15"
+	public String getVMRanges()
+	{
+		StringBuilder builder = new StringBuilder();
+
+		int start = vms.nextSetBit(0);
+
+		while (start >= 0)
+		{
+			int end = vms.nextClearBit(start) - 1;
+
+			if (builder.length() > 0)
+			{
+				builder.append(',');
+			}
+
+			builder.append(start);
+
+			if (end > start)
+			{
+				builder.append('-').append(end);
+			}
+
+			start = vms.nextSetBit(end + 1);
+		}
+
+		return builder.toString();
+	}
+
+	@Override public boolean equals(Object o)
+	{
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		SwitchDefinition that = (SwitchDefinition) o;
+
+		return hashCode == that.hashCode && switchInfo.hasSameDefinition(that.switchInfo);
+	}
+
+	@Override public int hashCode()
+	{
+		return hashCode;
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.store;
+
+import com.chrisnewland.vmoe.JSONStreamWriter;
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.catalogue.CatalogueField;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+
+// The options of one VM version either in full (a keyframe) or as the changes from the previous version.
+// Switches are identified by their SwitchInfoMap key. Applying every patch from the nearest keyframe
+// rebuilds the same map that json/options is written from.
+//
+// The delta tables (json/diffs and the difference pages) match switches by name only, so a switch that
+// gains an OS or CPU variant is "added" here but not there. The two are not meant to agree.
+//
+// keyframe  { "vm" : "OpenJDK16", "keyframe" : true,
+//           "switches" : [ {...},
+//           ... ] }
+//
+// patch     { "vm" : "OpenJDK17", "base" : "OpenJDK16",
+//           "added" : [ {...},
+//           ... ],
+//           "removed" : [ "key", ... ],
+//           "changed" : [ {"key":"...","set":{"field":"value"},"unset":["field"]},
+//           ... ] }
+public class VersionPatch
+{
+	private static final CatalogueField[] SORTED_FIELDS = CatalogueField.values();
+
+	static
+	{
+		Arrays.sort(SORTED_FIELDS, Comparator.comparing(CatalogueField::getKey));
+	}
+
+	private final String vmName;
+
+	private final String baseVMName;
+
+	private final SwitchInfoMap base;
+
+	private final SwitchInfoMap switches;
+
+	private VersionPatch(String vmName, SwitchInfoMap switches, String baseVMName, SwitchInfoMap base)
+	{
+		this.vmName = vmName;
+		this.switches = switches;
+		this.baseVMName = baseVMName;
+		this.base = base;
+	}
+
+	public static VersionPatch keyframe(String vmName, SwitchInfoMap switches)
+	{
+		return new VersionPatch(vmName, switches, null, null);
+	}
+
+	public static VersionPatch between(String baseVMName, SwitchInfoMap base, String vmName, SwitchInfoMap switches)
+	{
+		return new VersionPatch(vmName, switches, baseVMName, base);
+	}
+
+	public boolean isKeyframe()
+	{
+		return base == null;
+	}
+
+	public String getVMName()
+	{
+		return vmName;
+	}
+
+	public void writeJSON(JSONStreamWriter writer) throws IOException
+	{
+		writer.writeRaw("{ \"vm\" : ").writeQuoted(vmName);
+
+		if (isKeyframe())
+		{
+			writer.writeRaw(", \"keyframe\" : true,\n\"switches\" : [ ");
+
+			writeSwitches(writer, switches, null);
+
+			writer.writeRaw("] }");
+
+			return;
+		}
+
+		writer.writeRaw(", \"base\" : ").writeQuoted(baseVMName).writeRaw(",\n\"added\" : [ ");
+
+		writeSwitches(writer, switches, base);
+
+		writer.writeRaw("],\n\"removed\" : [ ");
+
+		boolean first = true;
+
+		for (String key : base.keySet())
+		{
+			if (!switches.containsKey(key))
+			{
+				if (!first)
+				{
+					writer.writeRaw(", ");
+				}
+
+				writer.writeQuoted(key);
+
+				first = false;
+			}
+		}
+
+		writer.writeRaw(first ? "],\n\"changed\" : [ " : " ],\n\"changed\" : [ ");
+
+		first = true;
+
+		for (Map.Entry<String, SwitchInfo> entry : switches.entrySet())
+		{
+			SwitchInfo before = base.get(entry.getKey());
+
+			if (before != null && isChanged(before, entry.getValue()))
+			{
+				if (!first)
+				{
+					writer.writeRaw(",\n");
+				}
+
+				writeChange(writer, entry.getKey(), before, entry.getValue());
+
+				first = false;
+			}
+		}
+
+		writer.writeRaw(first ? "] }" : "\n] }");
+	}
+
+	// switches not present in exclude (all of them when exclude is null)
+	private void writeSwitches(JSONStreamWriter writer, SwitchInfoMap map, SwitchInfoMap exclude) throws IOException
+	{
+		boolean first = true;
+
+		for (Map.Entry<String, SwitchInfo> entry : map.entrySet())
+		{
+			if (exclude == null || !exclude.containsKey(entry.getKey()))
+			{
+				if (!first)
+				{
+					writer.writeRaw(",\n");
+				}
+
+				entry.getValue().writeJSON(writer);
+
+				first = false;
+			}
+		}
+
+		if (!first)
+		{
+			writer.writeRaw("\n");
+		}
+	}
+
+	private boolean isChanged(SwitchInfo before, SwitchInfo after)
+	{
+		return !before.hasSameDefinition(after);
+	}
+
+	private void writeChange(JSONStreamWriter writer, String key, SwitchInfo before, SwitchInfo after) throws IOException
+	{
+		writer.writeRaw("{\"key\":").writeQuoted(key).writeRaw(",\"set\":").beginObject();
+
+		for (CatalogueField field : SORTED_FIELDS)
+		{
+			String value = field.getValue(after);
+
+			if (!Objects.equals(field.getValue(before), value))
+			{
+				writer.writeField(field.getKey(), value);
+			}
+		}
+
+		writer.endObject().writeRaw(",\"unset\":[");
+
+		boolean first = true;
+
+		for (CatalogueField field : SORTED_FIELDS)
+		{
+			if (field.getValue(before) != null && field.getValue(after) == null)
+			{
+				if (!first)
+				{
+					writer.writeRaw(",");
+				}
+
+				writer.writeQuoted(field.getKey());
+
+				first = false;
+			}
+		}
+
+		writer.writeRaw("]}");
+	}
+
+	// Rebuilds a version from the previous version's map (ignored for a keyframe). The base is not modified.
+	public static SwitchInfoMap apply(SwitchInfoMap base, JSONObject patch)
+	{
+		SwitchInfoMap.Builder result = SwitchInfoMap.builder();
+
+		if (patch.optBoolean("keyframe"))
+		{
+			putAll(result, patch.getJSONArray("switches"));
+
+			return result.freeze();
+		}
+
+		for (Map.Entry<String, SwitchInfo> entry : base.entrySet())
+		{
+			result.put(entry.getKey(), new SwitchInfo(entry.getValue()));
+		}
+
+		JSONArray removed = patch.getJSONArray("removed");
+
+		for (int i = 0; i < removed.length(); i++)
+		{
+			result.remove(removed.getString(i));
+		}
+
+		putAll(result, patch.getJSONArray("added"));
+
+		JSONArray changed = patch.getJSONArray("changed");
+
+		for (int i = 0; i < changed.length(); i++)
+		{
+			JSONObject change = changed.getJSONObject(i);
+
+			String key = change.getString("key");
+
+			JSONObject fields = new JSONObject(result.get(key).serialise());
+
+			JSONObject set = change.getJSONObject("set");
+
+			for (String field : set.keySet())
+			{
+				fields.put(field, set.getString(field));
+			}
+
+			JSONArray unset = change.getJSONArray("unset");
+
+			for (int j = 0; j < unset.length(); j++)
+			{
+				fields.remove(unset.getString(j));
+			}
+
+			result.put(key, SwitchInfo.deserialise(fields));
+		}
+
+		return result.freeze();
+	}
+
+	private static void putAll(SwitchInfoMap.Builder builder, JSONArray switchArray)
+	{
+		for (int i = 0; i < switchArray.length(); i++)
+		{
+			builder.put(SwitchInfo.deserialise(switchArray.getJSONObject(i)));
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import com.chrisnewland.vmoe.parser.delta.GraalDeltaTable;
+import com.chrisnewland.vmoe.parser.delta.IDeltaTable;
+import com.chrisnewland.vmoe.parser.intrinsic.Intrinsic;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestSerialiserNDJSON
+{
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void testOptions() throws Exception
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		Serialiser serialiser = createSerialiser();
+
+		for (int i = 0; i < versions.size(); i++)
+		{
+			serialiser.serialiseSwitchInfo(getPath("VM" + i + ".json"), "VM" + i, versions.get(i).values());
+		}
+
+		serialiser.close();
+
+		for (int i = 0; i < versions.size(); i++)
+		{
+			List<String> lines = readLines(getPath("VM" + i + ".ndjson"));
+
+			checkHeader(lines.get(0), "switches", "VM" + i, versions.get(i).size());
+
+			SwitchInfoMap.Builder builder = SwitchInfoMap.builder();
+
+			for (String line : lines.subList(1, lines.size()))
+			{
+				builder.put(SwitchInfo.deserialise(new JSONObject(line)));
+			}
+
+			UnitTestUtil.assertSameSwitches(versions.get(i), builder.freeze());
+		}
+	}
+
+	@Test public void testIntrinsics() throws Exception
+	{
+		Intrinsic hashCode = new Intrinsic("_hashCode", "java/lang/Object", "hashCode", "()I", "F_R");
+
+		hashCode.setSince("OpenJDK6");
+
+		List<Intrinsic> intrinsics = Arrays.asList(hashCode,
+				new Intrinsic("_compareToL", "java/lang/StringLatin1", "compareTo", "([B[B)I", "F_S"));
+
+		Serialiser serialiser = createSerialiser();
+
+		serialiser.serialiseIntrinsics(getPath("intrinsics.json"), "OpenJDK17", intrinsics);
+
+		serialiser.close();
+
+		List<String> lines = readLines(getPath("intrinsics.ndjson"));
+
+		checkHeader(lines.get(0), "intrinsics", "OpenJDK17", intrinsics.size());
+
+		assertEquals(intrinsics.size() + 1, lines.size());
+
+		for (int i = 0; i < intrinsics.size(); i++)
+		{
+			assertEquals(new JSONObject(intrinsics.get(i).serialise()).toMap(), new JSONObject(lines.get(i + 1)).toMap());
+		}
+	}
+
+	@Test public void testDiffs() throws Exception
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		SwitchInfoMap earlier = versions.get(0);
+		SwitchInfoMap later = versions.get(1);
+
+		List<SwitchInfo> removed = earlier.getSwitchesWithNamesNotIn(later);
+		List<SwitchInfo> added = later.getSwitchesWithNamesNotIn(earlier);
+
+		assertFalse(removed.isEmpty());
+		assertFalse(added.isEmpty());
+
+		IDeltaTable deltaTable = new GraalDeltaTable(new VMData("Earlier VM", new File("earlier"), VMType.GRAAL_VM),
+				new VMData("Later VM", new File("later"), VMType.GRAAL_VM));
+
+		for (SwitchInfo switchInfo : removed)
+		{
+			deltaTable.recordRemoval(switchInfo);
+		}
+
+		for (SwitchInfo switchInfo : added)
+		{
+			deltaTable.recordAddition(switchInfo);
+		}
+
+		Serialiser serialiser = createSerialiser();
+
+		serialiser.serialiseDiffs(getPath("diffs.json"), deltaTable);
+
+		serialiser.close();
+
+		List<String> lines = readLines(getPath("diffs.ndjson"));
+
+		JSONObject header = new JSONObject(lines.get(0));
+
+		assertEquals("diffs", header.getString("content"));
+		assertEquals("Earlier_VM", header.getString("earlierVM"));
+		assertEquals("Later_VM", header.getString("laterVM"));
+		assertEquals(added.size(), header.getInt("added"));
+		assertEquals(removed.size(), header.getInt("removed"));
+
+		List<SwitchInfo> expected = new ArrayList<>(added);
+
+		expected.addAll(removed);
+
+		assertEquals(expected.size() + 1, lines.size());
+
+		for (int i = 0; i < expected.size(); i++)
+		{
+			JSONObject line = new JSONObject(lines.get(i + 1));
+
+			assertEquals(i < added.size() ? "added" : "removed", line.getString("change"));
+			assertEquals(expected.get(i).serialise(), SwitchInfo.deserialise(line.getJSONObject("switch")).serialise());
+		}
+	}
+
+	@Test public void testNotWrittenByDefault() throws Exception
+	{
+		Serialiser serialiser = new Serialiser();
+
+		serialiser.serialiseSwitchInfo(getPath("VM0.json"), "VM0", UnitTestUtil.createVersions().get(0).values());
+
+		serialiser.close();
+
+		assertFalse(Files.exists(getPath("VM0.ndjson")));
+	}
+
+	private Serialiser createSerialiser()
+	{
+		Serialiser serialiser = new Serialiser();
+
+		serialiser.setWriteNDJSON(true);
+
+		return serialiser;
+	}
+
+	private Path getPath(String filename)
+	{
+		return folder.getRoot().toPath().resolve(filename);
+	}
+
+	private List<String> readLines(Path path) throws Exception
+	{
+		byte[] bytes = Files.readAllBytes(path);
+
+		String content = new String(bytes, StandardCharsets.UTF_8);
+
+		// every record, including the last, ends with a newline and none span lines
+		assertEquals('\n', content.charAt(content.length() - 1));
+
+		return Arrays.asList(content.substring(0, content.length() - 1).split("\n", -1));
+	}
+
+	private void checkHeader(String line, String content, String vmName, int count)
+	{
+		JSONObject header = new JSONObject(line);
+
+		assertEquals(content, header.getString("content"));
+		assertEquals(vmName, header.getString("vm"));
+		assertEquals(count, header.getInt("count"));
+	}
+}
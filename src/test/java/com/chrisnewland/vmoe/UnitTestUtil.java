@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UnitTestUtil
+{
+	// Three versions of a VM that between them add, remove and change switches, set and unset
+	// every field and hold text that needs escaping.
+	public static List<SwitchInfoMap> createVersions()
+	{
+		SwitchInfo useG1GC = createSwitch(SwitchInfo.PREFIX_XX, "UseG1GC", "bool", "true", "product",
+				"Use the \"Garbage First\" garbage collector\nsee gc/g1", "src/hotspot/share/gc/shared/gc_globals.hpp");
+		useG1GC.setComponent("gc");
+
+		SwitchInfo sseX86 = createSwitch(SwitchInfo.PREFIX_XX, "UseSSE42Intrinsics", "bool", "false", "product",
+				"SSE4.2 versions of intrinsics", "src/hotspot/cpu/x86/globals_x86.hpp");
+		sseX86.setCpu("x86");
+
+		SwitchInfo sseAarch64 = new SwitchInfo(sseX86);
+		sseAarch64.setCpu("aarch64");
+		sseAarch64.setDefinedIn("src/hotspot/cpu/aarch64/globals_aarch64.hpp");
+
+		SwitchInfo traceFoo = createSwitch(SwitchInfo.PREFIX_XX, "TraceFoo", "intx", "0", "develop", "Trace foo\tlevel",
+				"src/hotspot/share/runtime/globals.hpp");
+		traceFoo.setComponent("runtime");
+		traceFoo.setMacro("NOT_EMBEDDED");
+		traceFoo.setComment("// keep in sync with foo.cpp");
+		traceFoo.setRange("range(0, 100)");
+
+		SwitchInfo maxHeap = createSwitch(SwitchInfo.PREFIX_X, "mx", "<size>", null, null, "set maximum Java heap size",
+				"Xusage.txt");
+
+		SwitchInfo oldFlag = createSwitch(SwitchInfo.PREFIX_XX, "OldFlag", "ccstr", "C:\\tmp\\old", "product",
+				"Gr\u00f6\u00dfe \u2014 \u2615 </script>", "src/hotspot/share/runtime/globals.hpp");
+		oldFlag.setComponent("runtime");
+		oldFlag.setSince("OpenJDK8");
+		oldFlag.setDeprecated("JDK_Version::jdk(9)");
+		oldFlag.setObsoleted("JDK_Version::jdk(10)");
+		oldFlag.setExpired("JDK_Version::jdk(11)");
+
+		SwitchInfoMap first = SwitchInfoMap.builder()
+										   .put(useG1GC)
+										   .put(sseX86)
+										   .put(sseAarch64)
+										   .put(traceFoo)
+										   .put(maxHeap)
+										   .put(oldFlag)
+										   .freeze();
+
+		SwitchInfo useG1GCDefault = new SwitchInfo(useG1GC);
+		useG1GCDefault.setDefaultValue("false");
+
+		SwitchInfo traceFooRange = new SwitchInfo(traceFoo);
+		traceFooRange.setComment(null);
+		traceFooRange.setRange("range(0, 200)");
+
+		SwitchInfo newFlag = createSwitch(SwitchInfo.PREFIX_XX, "NewFlag", "uint", "", "experimental", null,
+				"src/hotspot/os/linux/globals_linux.hpp");
+		newFlag.setOs("linux");
+
+		SwitchInfoMap second = SwitchInfoMap.builder()
+											.put(useG1GCDefault)
+											.put(sseX86)
+											.put(traceFooRange)
+											.put(maxHeap)
+											.put(newFlag)
+											.freeze();
+
+		SwitchInfo oldFlagReturns = new SwitchInfo(oldFlag);
+		oldFlagReturns.setObsoleted(null);
+		oldFlagReturns.setExpired(null);
+
+		SwitchInfoMap third = SwitchInfoMap.builder()
+										   .put(useG1GCDefault)
+										   .put(sseX86)
+										   .put(sseAarch64)
+										   .put(traceFooRange)
+										   .put(maxHeap)
+										   .put(oldFlagReturns)
+										   .freeze();
+
+		return new ArrayList<>(Arrays.asList(first, second, third));
+	}
+
+	public static SwitchInfo createSwitch(String prefix, String name, String type, String defaultValue, String availability,
+			String description, String definedIn)
+	{
+		SwitchInfo switchInfo = new SwitchInfo(prefix, name);
+
+		switchInfo.setType(type);
+		switchInfo.setDefaultValue(defaultValue);
+		switchInfo.setAvailability(availability);
+		switchInfo.setDescription(description);
+		switchInfo.setDefinedIn(definedIn);
+
+		return switchInfo;
+	}
+
+	public static void assertSameSwitches(Map<String, SwitchInfo> expected, Map<String, SwitchInfo> actual)
+	{
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+
+		for (Map.Entry<String, SwitchInfo> entry : expected.entrySet())
+		{
+			SwitchInfo expectedSwitch = entry.getValue();
+			SwitchInfo actualSwitch = actual.get(entry.getKey());
+
+			assertEquals(expectedSwitch.serialise(), actualSwitch.serialise());
+			assertTrue(entry.getKey(), expectedSwitch.hasSameDefinition(actualSwitch));
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.catalogue;
+
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.UnitTestUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestCatalogue
+{
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void testRoundTrip() throws IOException
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		Catalogue catalogue = writeAndOpen(versions);
+
+		assertEquals(versions.size(), catalogue.getVMCount());
+
+		for (int vm = 0; vm < versions.size(); vm++)
+		{
+			assertEquals("VM" + vm, catalogue.getVMName(vm));
+			assertEquals(vm, catalogue.findVM("VM" + vm));
+
+			SwitchInfoMap.Builder builder = SwitchInfoMap.builder();
+
+			for (int i = 0; i < catalogue.getSwitchCount(vm); i++)
+			{
+				builder.put(catalogue.getSwitchInfo(catalogue.getRecord(vm, i)));
+			}
+
+			UnitTestUtil.assertSameSwitches(versions.get(vm), builder.freeze());
+		}
+	}
+
+	@Test public void testIdenticalSwitchesShareRecords() throws IOException
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		Catalogue catalogue = writeAndOpen(versions);
+
+		int switchCount = 0;
+
+		for (SwitchInfoMap version : versions)
+		{
+			switchCount += version.size();
+		}
+
+		assertEquals(switchCount, catalogue.getSwitchCount());
+		assertTrue(catalogue.getRecordCount() < switchCount);
+	}
+
+	@Test public void testFindSwitch() throws IOException
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		Catalogue catalogue = writeAndOpen(versions);
+
+		for (int vm = 0; vm < versions.size(); vm++)
+		{
+			for (SwitchInfo switchInfo : versions.get(vm).values())
+			{
+				int position = catalogue.findSwitch(vm, switchInfo.getName());
+
+				assertTrue(switchInfo.getName(), position >= 0);
+
+				int record = catalogue.getRecord(vm, position);
+
+				assertEquals(switchInfo.getName(), catalogue.getValue(record, CatalogueField.NAME));
+
+				if (position > 0)
+				{
+					// the first definition of the name
+					int previous = catalogue.getRecord(vm, position - 1);
+
+					assertTrue(catalogue.getValue(previous, CatalogueField.NAME).compareTo(switchInfo.getName()) < 0);
+				}
+			}
+
+			assertEquals(-1, catalogue.findSwitch(vm, "NoSuchSwitch"));
+		}
+
+		// a string in the catalogue that is not a switch name
+		assertEquals(-1, catalogue.findSwitch(0, "bool"));
+	}
+
+	@Test public void testEmptyCatalogue() throws IOException
+	{
+		Path path = folder.newFile("empty.catalogue").toPath();
+
+		try (OutputStream outputStream = Files.newOutputStream(path))
+		{
+			new CatalogueWriter().write(outputStream);
+		}
+
+		Catalogue catalogue = Catalogue.open(path);
+
+		assertEquals(0, catalogue.getVMCount());
+		assertEquals(0, catalogue.getRecordCount());
+		assertEquals(-1, catalogue.findVM("VM0"));
+	}
+
+	@Test(expected = IOException.class) public void testRejectsOtherFiles() throws IOException
+	{
+		Path path = folder.newFile("options.json").toPath();
+
+		Files.write(path, "{ \"switches\" : [ ] }".getBytes(StandardCharsets.UTF_8));
+
+		Catalogue.open(path);
+	}
+
+	private Catalogue writeAndOpen(List<SwitchInfoMap> versions) throws IOException
+	{
+		CatalogueWriter writer = new CatalogueWriter();
+
+		for (int vm = 0; vm < versions.size(); vm++)
+		{
+			writer.addVM("VM" + vm, versions.get(vm).values());
+		}
+
+		Path path = folder.newFile("options.catalogue").toPath();
+
+		try (OutputStream outputStream = Files.newOutputStream(path))
+		{
+			writer.write(outputStream);
+		}
+
+		return Catalogue.open(path);
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.store;
+
+import com.chrisnewland.vmoe.JSONStreamWriter;
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.UnitTestUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestDeduplicatedSwitchStore
+{
+	@Test public void testRoundTrip() throws IOException
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		DeduplicatedSwitchStore store = createStore(versions);
+
+		JSONObject json = toJSON(store);
+
+		JSONArray vms = json.getJSONArray("vms");
+
+		assertEquals(versions.size(), vms.length());
+
+		List<SwitchInfoMap.Builder> builders = new ArrayList<>();
+
+		for (int vm = 0; vm < vms.length(); vm++)
+		{
+			assertEquals("VM" + vm, vms.getString(vm));
+
+			builders.add(SwitchInfoMap.builder());
+		}
+
+		JSONArray switches = json.getJSONArray("switches");
+
+		assertEquals(store.getDefinitionCount(), switches.length());
+
+		for (int i = 0; i < switches.length(); i++)
+		{
+			JSONObject definition = switches.getJSONObject(i);
+
+			SwitchInfo switchInfo = SwitchInfo.deserialise(definition.getJSONObject("switch"));
+
+			for (int vm : parseRanges(definition.getString("vms")))
+			{
+				builders.get(vm).put(new SwitchInfo(switchInfo));
+			}
+		}
+
+		for (int vm = 0; vm < versions.size(); vm++)
+		{
+			UnitTestUtil.assertSameSwitches(versions.get(vm), builders.get(vm).freeze());
+		}
+	}
+
+	@Test public void testIdenticalSwitchesStoredOnce()
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		DeduplicatedSwitchStore store = createStore(versions);
+
+		int switchCount = 0;
+
+		for (SwitchInfoMap version : versions)
+		{
+			switchCount += version.size();
+		}
+
+		assertEquals(switchCount, store.getSwitchCount());
+		assertTrue(store.getDefinitionCount() < switchCount);
+
+		for (SwitchDefinition definition : store.getDefinitions())
+		{
+			for (int vm = 0; vm < versions.size(); vm++)
+			{
+				SwitchInfo switchInfo = versions.get(vm).get(definition.getSwitchInfo().getKey());
+
+				boolean inVM = switchInfo != null && switchInfo.hasSameDefinition(definition.getSwitchInfo());
+
+				assertEquals(definition.getSwitchInfo().getKey() + " in VM" + vm, inVM, definition.isInVM(vm));
+			}
+		}
+	}
+
+	@Test public void testLaterChangesNotSeen()
+	{
+		SwitchInfoMap version = UnitTestUtil.createVersions().get(0);
+
+		DeduplicatedSwitchStore store = new DeduplicatedSwitchStore();
+
+		store.addVM("VM0", version.values());
+
+		for (SwitchInfo switchInfo : version.values())
+		{
+			switchInfo.setSince("OpenJDK17");
+		}
+
+		for (SwitchDefinition definition : store.getDefinitions())
+		{
+			assertTrue(definition.getSwitchInfo().getSince() == null || "OpenJDK8".equals(definition.getSwitchInfo().getSince()));
+		}
+	}
+
+	@Test public void testVMRanges()
+	{
+		SwitchInfo switchInfo = UnitTestUtil.createSwitch(SwitchInfo.PREFIX_XX, "UseG1GC", "bool", "true", "product", null,
+				null);
+
+		SwitchInfo other = UnitTestUtil.createSwitch(SwitchInfo.PREFIX_XX, "UseG1GC", "bool", "false", "product", null, null);
+
+		DeduplicatedSwitchStore store = new DeduplicatedSwitchStore();
+
+		int[] pattern = { 1, 1, 1, 0, 1, 0, 1, 1 };
+
+		for (int vm = 0; vm < pattern.length; vm++)
+		{
+			List<SwitchInfo> switches = new ArrayList<>();
+
+			switches.add(pattern[vm] == 1 ? switchInfo : other);
+
+			store.addVM("VM" + vm, switches);
+		}
+
+		List<SwitchDefinition> definitions = store.getDefinitions();
+
+		assertEquals(2, definitions.size());
+		assertEquals("0-2,4,6-7", definitions.get(0).getVMRanges());
+		assertEquals("3,5", definitions.get(1).getVMRanges());
+	}
+
+	private DeduplicatedSwitchStore createStore(List<SwitchInfoMap> versions)
+	{
+		DeduplicatedSwitchStore store = new DeduplicatedSwitchStore();
+
+		for (int vm = 0; vm < versions.size(); vm++)
+		{
+			assertEquals(vm, store.addVM("VM" + vm, versions.get(vm).values()));
+		}
+
+		return store;
+	}
+
+	private JSONObject toJSON(DeduplicatedSwitchStore store) throws IOException
+	{
+		StringWriter stringWriter = new StringWriter();
+
+		try (JSONStreamWriter writer = new JSONStreamWriter(stringWriter))
+		{
+			store.writeJSON(writer);
+		}
+
+		return new JSONObject(stringWriter.toString());
+	}
+
+	// "0-12,15" -> 0,1,...,12,15
+	private List<Integer> parseRanges(String ranges)
+	{
+		List<Integer> result = new ArrayList<>();
+
+		for (String range : ranges.split(","))
+		{
+			int dash = range.indexOf('-');
+
+			int start = Integer.parseInt(dash == -1 ? range : range.substring(0, dash));
+			int end = dash == -1 ? start : Integer.parseInt(range.substring(dash + 1));
+
+			for (int vm = start; vm <= end; vm++)
+			{
+				result.add(vm);
+			}
+		}
+
+		return result;
+	}
+}
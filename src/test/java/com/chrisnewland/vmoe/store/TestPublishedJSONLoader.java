@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.store;
+
+import com.chrisnewland.vmoe.JSONStreamWriter;
+import com.chrisnewland.vmoe.Serialiser;
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.UnitTestUtil;
+import com.chrisnewland.vmoe.VMData;
+import com.chrisnewland.vmoe.VMType;
+import com.chrisnewland.vmoe.parser.delta.GraalDeltaTable;
+import com.chrisnewland.vmoe.parser.delta.IDeltaTable;
+import com.chrisnewland.vmoe.parser.intrinsic.Intrinsic;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestPublishedJSONLoader
+{
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void testOptionsRoundTrip() throws Exception
+	{
+		Serialiser serialiser = new Serialiser();
+
+		checkOptionsRoundTrip(serialiser);
+	}
+
+	@Test public void testOptionsRoundTripAsync() throws Exception
+	{
+		Serialiser serialiser = new Serialiser();
+
+		serialiser.setAsyncOutput(4);
+
+		checkOptionsRoundTrip(serialiser);
+	}
+
+	@Test public void testEmptyOptions() throws Exception
+	{
+		Path path = folder.getRoot().toPath().resolve("Empty.json");
+
+		Serialiser serialiser = new Serialiser();
+
+		serialiser.serialiseSwitchInfo(path, "Empty", SwitchInfoMap.empty().values());
+
+		serialiser.close();
+
+		assertEquals(0, PublishedJSONLoader.loadOptions(path).size());
+	}
+
+	@Test public void testIntrinsicsRoundTrip() throws Exception
+	{
+		List<Intrinsic> intrinsics = new ArrayList<>();
+
+		intrinsics.add(new Intrinsic("_hashCode", "java/lang/Object", "hashCode", "()I", "F_R"));
+		intrinsics.add(new Intrinsic("_getClass", "java/lang/Object", "getClass", "()Ljava/lang/Class;", "F_R"));
+
+		Intrinsic arraycopy = new Intrinsic("_arraycopy", "java/lang/System", "arraycopy",
+				"(Ljava/lang/Object;ILjava/lang/Object;II)V", "F_S");
+
+		arraycopy.setSince("OpenJDK8");
+
+		intrinsics.add(arraycopy);
+
+		Path path = folder.getRoot().toPath().resolve("intrinsics.json");
+
+		Serialiser serialiser = new Serialiser();
+
+		serialiser.serialiseIntrinsics(path, "OpenJDK8", intrinsics);
+
+		serialiser.close();
+
+		List<Intrinsic> loaded = PublishedJSONLoader.loadIntrinsics(path);
+
+		assertEquals(intrinsics.size(), loaded.size());
+
+		for (int i = 0; i < intrinsics.size(); i++)
+		{
+			assertEquals(intrinsics.get(i).serialise(), loaded.get(i).serialise());
+		}
+	}
+
+	@Test public void testDiffsRoundTrip() throws Exception
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		SwitchInfoMap earlier = versions.get(0);
+		SwitchInfoMap later = versions.get(1);
+
+		IDeltaTable deltaTable = createDeltaTable();
+
+		for (SwitchInfo switchInfo : earlier.getSwitchesWithNamesNotIn(later))
+		{
+			deltaTable.recordRemoval(switchInfo);
+		}
+
+		for (SwitchInfo switchInfo : later.getSwitchesWithNamesNotIn(earlier))
+		{
+			deltaTable.recordAddition(switchInfo);
+		}
+
+		Path path = folder.getRoot().toPath().resolve("diffs.json");
+
+		Serialiser serialiser = new Serialiser();
+
+		serialiser.serialiseDiffs(path, deltaTable);
+
+		serialiser.close();
+
+		IDeltaTable loaded = createDeltaTable();
+
+		PublishedJSONLoader.loadDiffs(path, loaded);
+
+		assertEquals(deltaTable.getAdditionCount(), loaded.getAdditionCount());
+		assertEquals(deltaTable.getRemovalCount(), loaded.getRemovalCount());
+		assertEquals(toJSON(deltaTable), toJSON(loaded));
+	}
+
+	private void checkOptionsRoundTrip(Serialiser serialiser) throws Exception
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		List<Path> paths = new ArrayList<>();
+
+		for (int i = 0; i < versions.size(); i++)
+		{
+			Path path = folder.getRoot().toPath().resolve("VM" + i + ".json");
+
+			serialiser.serialiseSwitchInfo(path, "VM" + i, versions.get(i).values());
+
+			paths.add(path);
+		}
+
+		serialiser.close();
+
+		for (int i = 0; i < versions.size(); i++)
+		{
+			UnitTestUtil.assertSameSwitches(versions.get(i), PublishedJSONLoader.loadOptions(paths.get(i)));
+		}
+	}
+
+	private IDeltaTable createDeltaTable()
+	{
+		return new GraalDeltaTable(new VMData("Earlier VM", new File("earlier"), VMType.GRAAL_VM),
+				new VMData("Later VM", new File("later"), VMType.GRAAL_VM));
+	}
+
+	private String toJSON(IDeltaTable deltaTable) throws IOException
+	{
+		StringWriter stringWriter = new StringWriter();
+
+		try (JSONStreamWriter writer = new JSONStreamWriter(stringWriter))
+		{
+			deltaTable.writeJSON(writer);
+		}
+
+		return stringWriter.toString();
+	}
+}
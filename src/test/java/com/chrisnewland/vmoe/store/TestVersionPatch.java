@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018-2021 Chris Newland.
+ * Licensed under https://github.com/chriswhocodes/VMOptionsExplorer/blob/master/LICENSE
+ */
+package com.chrisnewland.vmoe.store;
+
+import com.chrisnewland.vmoe.JSONStreamWriter;
+import com.chrisnewland.vmoe.SwitchInfo;
+import com.chrisnewland.vmoe.SwitchInfoMap;
+import com.chrisnewland.vmoe.UnitTestUtil;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestVersionPatch
+{
+	@Test public void testKeyframeRoundTrip() throws IOException
+	{
+		for (SwitchInfoMap version : UnitTestUtil.createVersions())
+		{
+			JSONObject keyframe = toJSON(VersionPatch.keyframe("VM", version));
+
+			assertTrue(keyframe.getBoolean("keyframe"));
+
+			UnitTestUtil.assertSameSwitches(version, VersionPatch.apply(null, keyframe));
+		}
+	}
+
+	@Test public void testPatchChainRoundTrip() throws IOException
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		SwitchInfoMap rebuilt = VersionPatch.apply(null, toJSON(VersionPatch.keyframe("VM0", versions.get(0))));
+
+		for (int i = 1; i < versions.size(); i++)
+		{
+			JSONObject patch = toJSON(VersionPatch.between("VM" + (i - 1), versions.get(i - 1), "VM" + i, versions.get(i)));
+
+			assertFalse(patch.has("keyframe"));
+			assertEquals("VM" + (i - 1), patch.getString("base"));
+
+			rebuilt = VersionPatch.apply(rebuilt, patch);
+
+			UnitTestUtil.assertSameSwitches(versions.get(i), rebuilt);
+		}
+	}
+
+	@Test public void testPatchHoldsOnlyChanges() throws IOException
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		JSONObject patch = toJSON(VersionPatch.between("VM0", versions.get(0), "VM1", versions.get(1)));
+
+		// NewFlag
+		assertEquals(1, patch.getJSONArray("added").length());
+
+		// UseSSE42Intrinsics on aarch64 and OldFlag
+		assertEquals(2, patch.getJSONArray("removed").length());
+
+		// the UseG1GC default and the TraceFoo comment and range
+		assertEquals(2, patch.getJSONArray("changed").length());
+	}
+
+	@Test public void testApplyLeavesBaseUnchanged() throws IOException
+	{
+		List<SwitchInfoMap> versions = UnitTestUtil.createVersions();
+
+		SwitchInfoMap base = versions.get(0);
+
+		String before = serialise(base);
+
+		SwitchInfoMap rebuilt = VersionPatch.apply(base, toJSON(VersionPatch.between("VM0", base, "VM1", versions.get(1))));
+
+		assertEquals(before, serialise(base));
+
+		for (SwitchInfo switchInfo : rebuilt.values())
+		{
+			for (SwitchInfo baseSwitch : base.values())
+			{
+				assertFalse(switchInfo == baseSwitch);
+			}
+		}
+	}
+
+	@Test public void testUnchangedVersion() throws IOException
+	{
+		SwitchInfoMap version = UnitTestUtil.createVersions().get(0);
+
+		JSONObject patch = toJSON(VersionPatch.between("VM0", version, "VM1", version));
+
+		assertEquals(0, patch.getJSONArray("added").length());
+		assertEquals(0, patch.getJSONArray("removed").length());
+		assertEquals(0, patch.getJSONArray("changed").length());
+
+		UnitTestUtil.assertSameSwitches(version, VersionPatch.apply(version, patch));
+	}
+
+	private JSONObject toJSON(VersionPatch patch) throws IOException
+	{
+		StringWriter stringWriter = new StringWriter();
+
+		try (JSONStreamWriter writer = new JSONStreamWriter(stringWriter))
+		{
+			patch.writeJSON(writer);
+		}
+
+		return new JSONObject(stringWriter.toString());
+	}
+
+	private String serialise(SwitchInfoMap switches)
+	{
+		StringBuilder builder = new StringBuilder();
+
+		for (SwitchInfo switchInfo : switches.values())
+		{
+			builder.append(switchInfo.serialise()).append('\n');
+		}
+
+		return builder.toString();
+	}
+}